@@ -0,0 +1,66 @@
+package com.kousenit.pubsub;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Compares serial send, the common-pool sendParallel, and the dedicated
+// ParallelDispatcher pools across fan-out widths and per-subscriber cost.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelDispatchBenchmark {
+
+    @Param({"1", "4", "16", "256", "4096"})
+    private int subscribers;
+
+    // Blackhole.consumeCPU tokens spent in each onNext
+    @Param({"0", "100", "1000"})
+    private int work;
+
+    private Publisher publisher;
+    private ParallelDispatcher forkJoin;
+    private ParallelDispatcher virtualThreads;
+
+    @Setup
+    public void setUp() {
+        publisher = new Publisher();
+        int tokens = work;
+        for (int i = 0; i < subscribers; i++) {
+            publisher.subscribe(message -> Blackhole.consumeCPU(tokens));
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        forkJoin = new ParallelDispatcher(cores, 8, true);
+        virtualThreads = ParallelDispatcher.withVirtualThreads(cores, 8, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        forkJoin.close();
+        virtualThreads.close();
+    }
+
+    @Benchmark
+    public void send() {
+        publisher.send("message");
+    }
+
+    @Benchmark
+    public void sendParallelCommonPool() {
+        publisher.sendParallel("message");
+    }
+
+    @Benchmark
+    public void sendParallelForkJoinDispatcher() {
+        publisher.sendParallel("message", forkJoin);
+    }
+
+    @Benchmark
+    public void sendParallelVirtualThreadDispatcher() {
+        publisher.sendParallel("message", virtualThreads);
+    }
+}
@@ -0,0 +1,76 @@
+package com.kousenit.pubsub;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Throughput and latency percentiles (SampleTime reports p50 to p99.99) of
+// send and sendParallel across fan-out width, subscriber cost and number of
+// concurrent publishers. Messages are passed by reference and never copied,
+// so their size does not matter here. The full matrix takes a long time;
+// narrow it with JMH options, e.g. "PublisherBenchmark -p work=noop".
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PublisherBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    private int subscribers;
+
+    // noop: a single token of CPU work; cpu: spin ~1 µs; blocking: park 10 µs, like an I/O call
+    @Param({"noop", "cpu", "blocking"})
+    private String work;
+
+    private final String message = "message";
+
+    private Publisher publisher;
+
+    @Setup
+    public void setUp() {
+        publisher = new Publisher();
+        for (int i = 0; i < subscribers; i++) {
+            publisher.subscribe(subscriber());
+        }
+    }
+
+    // Subscribers run on several publishing and dispatcher threads at once,
+    // so they must not capture a Blackhole, which belongs to a single thread
+    private Subscriber subscriber() {
+        switch (work) {
+            case "cpu":
+                return message -> Blackhole.consumeCPU(250);
+            case "blocking":
+                return message -> LockSupport.parkNanos(10_000);
+            case "noop":
+            default:
+                return message -> Blackhole.consumeCPU(1);
+        }
+    }
+
+    @Benchmark
+    public void send() {
+        publisher.send(message);
+    }
+
+    @Benchmark
+    public void sendParallel() {
+        publisher.sendParallel(message);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void sendFromFourPublishers() {
+        publisher.send(message);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void sendParallelFromFourPublishers() {
+        publisher.sendParallel(message);
+    }
+}
@@ -0,0 +1,83 @@
+package com.kousenit.simple;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Compares the AddingMachine totalling strategies per kind of input list.
+// Add the GC profiler to see allocation per call (boxing, iterators, streams):
+// -PjmhProfilers=gc with Gradle, or "-prof gc" in jmh.args with Maven.
+// The loop strategy is quadratic on a LinkedList, hence the modest sizes.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AddingMachineBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int size;
+
+    @Param({"ArrayList", "LinkedList", "ListOf", "IntList"})
+    private String source;
+
+    private AddingMachine machine;
+
+    @Setup
+    public void setUp() {
+        int[] values = new Random(42).ints(size, 0, 1000).toArray();
+        machine = new AddingMachine(list(values));
+    }
+
+    private List<Integer> list(int[] values) {
+        switch (source) {
+            case "LinkedList":
+                return new LinkedList<>(boxed(values));
+            case "ListOf":
+                return List.of(boxed(values).toArray(new Integer[0]));
+            case "IntList":
+                return IntList.of(values);
+            case "ArrayList":
+            default:
+                return boxed(values);
+        }
+    }
+
+    private static List<Integer> boxed(int[] values) {
+        List<Integer> list = new ArrayList<>(values.length);
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public long loop() {
+        return machine.getTotalUsingLoop();
+    }
+
+    @Benchmark
+    public long iterable() {
+        return machine.getTotalUsingIterable();
+    }
+
+    @Benchmark
+    public long stream() {
+        return machine.getTotalUsingStream();
+    }
+
+    @Benchmark
+    public long unrolled() {
+        return machine.getTotalUnrolled();
+    }
+
+    @Benchmark
+    public long parallel() {
+        return machine.getTotalParallel();
+    }
+}
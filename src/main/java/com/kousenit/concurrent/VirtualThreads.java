@@ -0,0 +1,59 @@
+package com.kousenit.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Uses virtual threads when running on Java 21+, and falls back to daemon
+// platform threads otherwise. Reflection keeps the code compiling on Java 11.
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isAvailable() {
+        return virtualThreadFactory("probe") != null;
+    }
+
+    public static ThreadFactory factory(String namePrefix) {
+        ThreadFactory factory = virtualThreadFactory(namePrefix);
+        return factory != null ? factory : daemonThreadFactory(namePrefix);
+    }
+
+    // One virtual thread per task, or a fixed pool of daemon threads
+    public static ExecutorService newExecutor(String namePrefix, int platformThreads) {
+        ThreadFactory factory = virtualThreadFactory(namePrefix);
+        if (factory != null) {
+            try {
+                return (ExecutorService) Executors.class
+                        .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                        .invoke(null, factory);
+            } catch (ReflectiveOperationException ignored) {
+                // fall through to platform threads
+            }
+        }
+        return Executors.newFixedThreadPool(platformThreads, daemonThreadFactory(namePrefix));
+    }
+
+    private static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class)
+                    .invoke(builder, namePrefix + "-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
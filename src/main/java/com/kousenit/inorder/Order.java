@@ -0,0 +1,40 @@
+package com.kousenit.inorder;
+
+import java.util.Objects;
+
+public final class Order {
+
+    private final double amount;
+    private final String address;
+
+    public Order(double amount, String address) {
+        this.amount = amount;
+        this.address = address;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Order)) return false;
+        Order order = (Order) o;
+        return Double.compare(order.amount, amount) == 0 && Objects.equals(address, order.address);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(amount, address);
+    }
+
+    @Override
+    public String toString() {
+        return "Order{amount=" + amount + ", address='" + address + "'}";
+    }
+}
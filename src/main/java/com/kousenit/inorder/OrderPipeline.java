@@ -0,0 +1,90 @@
+package com.kousenit.inorder;
+
+import com.kousenit.concurrent.VirtualThreads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Processes orders asynchronously: authorize, capture and ship are
+// CompletableFuture stages, so each order keeps that order and stops early
+// when a payment step fails, while up to maxConcurrent orders are in flight
+// at once. Each authorize/capture pair keeps one of the PaymentService's
+// processors to itself, so payments overlap up to the number of processors
+// and shipping up to maxConcurrent. Stages run on virtual threads when
+// available. submit blocks once maxConcurrent orders are in flight.
+public class OrderPipeline implements AutoCloseable {
+
+    private final PaymentService paymentService;
+    private final ShippingService shippingService;
+    private final Semaphore inFlight;
+    private final ExecutorService executor;
+
+    public OrderPipeline(PaymentService paymentService, ShippingService shippingService, int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive: " + maxConcurrent);
+        }
+        this.paymentService = paymentService;
+        this.shippingService = shippingService;
+        this.inFlight = new Semaphore(maxConcurrent);
+        this.executor = VirtualThreads.newExecutor("order-pipeline", maxConcurrent);
+    }
+
+    public CompletableFuture<OrderStatus> submit(Order order) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<OrderStatus> status;
+        try {
+            status = paymentService.processPaymentAsync(order.getAmount(), executor)
+                    .thenApplyAsync(paid -> ship(paid, order), executor);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+        return status.whenComplete((result, failure) -> inFlight.release());
+    }
+
+    // Statuses in the same order as the orders. Submits through submit, so
+    // it blocks until all but the last maxConcurrent orders have started.
+    public CompletableFuture<List<OrderStatus>> submitAll(List<Order> orders) {
+        List<CompletableFuture<OrderStatus>> futures = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            futures.add(submit(order));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    List<OrderStatus> statuses = new ArrayList<>(futures.size());
+                    for (CompletableFuture<OrderStatus> future : futures) {
+                        statuses.add(future.join());
+                    }
+                    return statuses;
+                });
+    }
+
+    // Lets submitted orders finish, then stops the threads
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private OrderStatus ship(boolean paid, Order order) {
+        if (!paid) {
+            return OrderStatus.PAYMENT_FAILED;
+        }
+        return shippingService.shipProduct(order.getAddress())
+                ? OrderStatus.SHIPPED
+                : OrderStatus.SHIPPING_FAILED;
+    }
+}
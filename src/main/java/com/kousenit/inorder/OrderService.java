@@ -1,5 +1,8 @@
 package com.kousenit.inorder;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class OrderService {
 
     // Dependencies of the class under test
@@ -20,4 +23,42 @@ public class OrderService {
             return false;
         }
     }
+
+    // Batch version: all payments are processed before anything ships,
+    // and only paid orders ship. One status per order, in order.
+    public List<OrderStatus> processOrders(List<Order> orders) {
+        List<Double> amounts = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            amounts.add(order.getAmount());
+        }
+        List<Boolean> paid = paymentService.processPayments(amounts);
+        checkSize("processPayments", paid, orders.size());
+
+        List<String> addresses = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            if (paid.get(i)) {
+                addresses.add(orders.get(i).getAddress());
+            }
+        }
+        List<Boolean> shipped = addresses.isEmpty() ? List.of() : shippingService.shipBatch(addresses);
+        checkSize("shipBatch", shipped, addresses.size());
+
+        List<OrderStatus> statuses = new ArrayList<>(orders.size());
+        int next = 0;
+        for (boolean ok : paid) {
+            if (!ok) {
+                statuses.add(OrderStatus.PAYMENT_FAILED);
+            } else {
+                statuses.add(shipped.get(next++) ? OrderStatus.SHIPPED : OrderStatus.SHIPPING_FAILED);
+            }
+        }
+        return statuses;
+    }
+
+    private static void checkSize(String method, List<Boolean> results, int expected) {
+        if (results.size() != expected) {
+            throw new IllegalStateException(String.format(
+                    "%s returned %d results for %d orders", method, results.size(), expected));
+        }
+    }
 }
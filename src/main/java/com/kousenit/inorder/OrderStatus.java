@@ -0,0 +1,8 @@
+package com.kousenit.inorder;
+
+// Outcome of processing one order
+public enum OrderStatus {
+    SHIPPED,
+    PAYMENT_FAILED,     // not authorized, or the capture failed; nothing shipped
+    SHIPPING_FAILED     // paid, but the shipment was not accepted
+}
@@ -1,8 +1,23 @@
 package com.kousenit.inorder;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface PaymentProcessor {
 
     boolean authorizePayment(double amount);
 
     boolean capturePayment(); // request the authorized funds
+
+    // Authorizes and captures each amount in turn, so every capture takes
+    // the funds of the authorization just before it. One result per amount,
+    // in order: true only if both steps succeeded. Override to use a bulk
+    // endpoint that keeps each authorize/capture pair together.
+    default List<Boolean> processBatch(List<Double> amounts) {
+        List<Boolean> results = new ArrayList<>(amounts.size());
+        for (double amount : amounts) {
+            results.add(authorizePayment(amount) && capturePayment());
+        }
+        return results;
+    }
 }
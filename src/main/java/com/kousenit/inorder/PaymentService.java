@@ -1,21 +1,103 @@
 package com.kousenit.inorder;
 
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 public class PaymentService {
 
-    // Dependency of the class under test.
-    private final PaymentProcessor processor;
+    // Dependencies of the class under test. capturePayment() takes the funds
+    // of a processor's latest authorization, so each processor handles one
+    // authorize/capture pair at a time; more processors, more payments at once.
+    private final Queue<PaymentProcessor> idle = new ArrayDeque<>();  // guarded by idle
+    private final Queue<CompletableFuture<PaymentProcessor>> waiting = new ArrayDeque<>();  // likewise
 
     // Constructor to make it easy to inject the dependency.
     public PaymentService(PaymentProcessor processor) {
-        this.processor = processor;
+        this(List.of(processor));
+    }
+
+    // Processors for payments in parallel, e.g. one per gateway connection
+    public PaymentService(List<PaymentProcessor> processors) {
+        if (processors.isEmpty()) {
+            throw new IllegalArgumentException("At least one payment processor is required");
+        }
+        idle.addAll(processors);
     }
 
     // Need to test this method.
     public boolean processPayment(double amount) {
-        // Payment must be authorized before collecting the money.
-        if (processor.authorizePayment(amount)) {
-            return processor.capturePayment();
+        PaymentProcessor processor = checkOut().join();
+        try {
+            // Payment must be authorized before collecting the money.
+            if (processor.authorizePayment(amount)) {
+                return processor.capturePayment();
+            }
+            return false;
+        } finally {
+            checkIn(processor);
+        }
+    }
+
+    // Batch version: one processor call for all the payments, each
+    // captured only if it was authorized. One result per amount.
+    public List<Boolean> processPayments(List<Double> amounts) {
+        PaymentProcessor processor = checkOut().join();
+        List<Boolean> results;
+        try {
+            results = processor.processBatch(amounts);
+        } finally {
+            checkIn(processor);
+        }
+        if (results.size() != amounts.size()) {
+            throw new IllegalStateException(String.format(
+                    "processBatch returned %d results for %d payments", results.size(), amounts.size()));
+        }
+        return results;
+    }
+
+    // Async version: authorize and capture are separate stages on the
+    // executor, both on the same processor, which is kept for the pair.
+    // Capture runs only after a successful authorization, and a failure in
+    // either completes the future exceptionally. Waiting for a free
+    // processor blocks no thread.
+    public CompletableFuture<Boolean> processPaymentAsync(double amount, Executor executor) {
+        return checkOut().thenCompose(processor -> {
+            try {
+                return CompletableFuture.supplyAsync(() -> processor.authorizePayment(amount), executor)
+                        .thenApplyAsync(authorized -> authorized && processor.capturePayment(), executor)
+                        .whenComplete((paid, failure) -> checkIn(processor));
+            } catch (RuntimeException e) {
+                checkIn(processor);  // e.g. the executor rejected the first stage
+                throw e;
+            }
+        });
+    }
+
+    // Completes with an idle processor as soon as one is free, first come first served
+    private CompletableFuture<PaymentProcessor> checkOut() {
+        synchronized (idle) {
+            PaymentProcessor processor = idle.poll();
+            if (processor != null) {
+                return CompletableFuture.completedFuture(processor);
+            }
+            CompletableFuture<PaymentProcessor> turn = new CompletableFuture<>();
+            waiting.add(turn);
+            return turn;
+        }
+    }
+
+    private void checkIn(PaymentProcessor processor) {
+        CompletableFuture<PaymentProcessor> next;
+        synchronized (idle) {
+            next = waiting.poll();
+            if (next == null) {
+                idle.add(processor);
+                return;
+            }
         }
-        return false;
+        next.complete(processor);
     }
 }
@@ -1,7 +1,18 @@
 package com.kousenit.inorder;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface ShippingService {
 
     boolean shipProduct(String address);
 
+    // One result per address, in order. Override to use a bulk endpoint.
+    default List<Boolean> shipBatch(List<String> addresses) {
+        List<Boolean> results = new ArrayList<>(addresses.size());
+        for (String address : addresses) {
+            results.add(shipProduct(address));
+        }
+        return results;
+    }
 }
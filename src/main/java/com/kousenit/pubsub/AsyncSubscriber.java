@@ -0,0 +1,128 @@
+package com.kousenit.pubsub;
+
+import com.kousenit.concurrent.VirtualThreads;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Decouples a subscriber from the publishing thread. onNext only enqueues into
+// a bounded ring buffer; a dedicated worker thread (virtual when available)
+// drains the buffer and calls the wrapped subscriber in order.
+public class AsyncSubscriber implements Subscriber, AutoCloseable {
+
+    private static final long BLOCK_PARK_NANOS = 50_000;
+
+    private final Subscriber delegate;
+    private final DeliveryGuard guard;
+    private final RingBuffer<String> buffer;
+    private final OverflowPolicy policy;
+    private final Object producerLock = new Object();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+
+    private volatile boolean closed;
+    private volatile boolean waiting;
+
+    public AsyncSubscriber(Subscriber delegate, int capacity, OverflowPolicy policy) {
+        this(delegate, capacity, policy, DeliveryGuard.standalone(delegate));
+    }
+
+    AsyncSubscriber(Subscriber delegate, int capacity, OverflowPolicy policy, DeliveryGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+        this.buffer = new RingBuffer<>(capacity);
+        this.policy = policy;
+        this.worker = VirtualThreads.factory("async-subscriber").newThread(this::drain);
+        worker.start();
+    }
+
+    @Override
+    public void onNext(String message) {
+        if (closed) {
+            throw new IllegalStateException("Subscriber is closed");
+        }
+        // Concurrent publishers take turns as the single producer;
+        // the worker thread never takes this lock.
+        synchronized (producerLock) {
+            while (!buffer.offer(message)) {
+                if (closed) {
+                    throw new IllegalStateException("Subscriber is closed");
+                }
+                switch (policy) {
+                    case DROP_NEWEST:
+                        dropped.incrementAndGet();
+                        return;
+                    case DROP_OLDEST:
+                        if (buffer.dropOldest()) {
+                            dropped.incrementAndGet();
+                        }
+                        break;
+                    case FAIL:
+                        throw new IllegalStateException("Buffer full (capacity " + buffer.capacity() + ")");
+                    case BLOCK:
+                    default:
+                        LockSupport.unpark(worker);
+                        LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+            }
+            if (closed) {
+                rejectIfWorkerMissed();
+            }
+        }
+        if (waiting) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    // Stops accepting messages, then waits for the worker to drain the buffer.
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // close() may have let the worker see an empty buffer and exit just
+    // before the offer; once it has exited, anything left is never delivered
+    private void rejectIfWorkerMissed() {
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!worker.isAlive() && buffer.poll() != null) {
+            throw new IllegalStateException("Subscriber is closed");
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            String message = buffer.poll();
+            if (message != null) {
+                guard.deliver(delegate, message);
+            } else if (closed) {
+                if (buffer.isEmpty()) {
+                    return;
+                }
+            } else {
+                waiting = true;
+                if (buffer.isEmpty() && !closed) {
+                    LockSupport.park(this);
+                }
+                waiting = false;
+            }
+        }
+    }
+}
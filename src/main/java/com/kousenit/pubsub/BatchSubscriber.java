@@ -0,0 +1,16 @@
+package com.kousenit.pubsub;
+
+import java.util.List;
+
+// A subscriber that can handle several messages in one call, e.g. to write
+// them to a downstream system with a single I/O operation.
+public interface BatchSubscriber extends Subscriber {
+
+    void onBatch(List<String> messages);
+
+    // Used when subscribed without batching
+    @Override
+    default void onNext(String message) {
+        onBatch(List.of(message));
+    }
+}
@@ -0,0 +1,124 @@
+package com.kousenit.pubsub;
+
+import com.kousenit.concurrent.VirtualThreads;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Groups messages for a BatchSubscriber. A batch is handed over when it
+// reaches maxBatchSize, or when its first message has waited maxLinger,
+// whichever comes first. Batches are delivered in order on a single worker;
+// once MAX_QUEUED_BATCHES are waiting for it, onNext blocks until it catches up.
+public class BatchingSubscriber implements Subscriber, AutoCloseable {
+
+    static final int MAX_QUEUED_BATCHES = 16;
+    private static final long BLOCK_PARK_NANOS = 50_000;
+
+    private final BatchSubscriber delegate;
+    private final DeliveryGuard guard;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final ScheduledExecutorService executor;
+    private final Object lock = new Object();
+    private final AtomicInteger queuedBatches = new AtomicInteger();
+
+    // guarded by lock
+    private List<String> pending;
+    private ScheduledFuture<?> lingerTask;
+    private long generation;  // identifies the pending batch for its linger task
+    private boolean closed;
+
+    public BatchingSubscriber(BatchSubscriber delegate, int maxBatchSize, Duration maxLinger) {
+        this(delegate, maxBatchSize, maxLinger, DeliveryGuard.standalone(delegate));
+    }
+
+    BatchingSubscriber(BatchSubscriber delegate, int maxBatchSize, Duration maxLinger, DeliveryGuard guard) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        this.delegate = delegate;
+        this.guard = guard;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = maxLinger.toNanos();
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+                VirtualThreads.factory("batching-subscriber"));
+    }
+
+    @Override
+    public void onNext(String message) {
+        while (queuedBatches.get() >= MAX_QUEUED_BATCHES && !closed) {
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Subscriber is closed");
+            }
+            if (pending == null) {
+                pending = new ArrayList<>(maxBatchSize);
+                long batch = ++generation;
+                lingerTask = executor.schedule(() -> flushOnLinger(batch), maxLingerNanos, TimeUnit.NANOSECONDS);
+            }
+            pending.add(message);
+            if (pending.size() >= maxBatchSize) {
+                lingerTask.cancel(false);
+                submitPending();
+            }
+        }
+    }
+
+    // Delivers whatever is pending, then stops the worker once it is done.
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (pending != null) {
+                lingerTask.cancel(false);
+                submitPending();
+            }
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // A timer that fires after its batch was flushed by size must not
+    // flush the next batch early
+    private void flushOnLinger(long batch) {
+        synchronized (lock) {
+            if (pending != null && generation == batch) {
+                submitPending();
+            }
+        }
+    }
+
+    // Must hold lock, so batches reach the executor in the order they filled.
+    private void submitPending() {
+        List<String> batch = Collections.unmodifiableList(pending);
+        pending = null;
+        lingerTask = null;
+        queuedBatches.incrementAndGet();
+        executor.execute(() -> deliver(batch));
+    }
+
+    private void deliver(List<String> batch) {
+        try {
+            guard.deliverBatch(delegate, batch);
+        } finally {
+            queuedBatches.decrementAndGet();
+        }
+    }
+}
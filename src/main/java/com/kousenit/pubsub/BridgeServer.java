@@ -0,0 +1,192 @@
+package com.kousenit.pubsub;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Receiving end of the cross-process bridge. A single selector thread
+// accepts connections from RemoteSubscribers, decodes their length-prefixed
+// frames, and sends each message to the local Publisher in arrival order.
+// Delivery runs on the selector thread, so slow local subscribers push back
+// on the remote senders through TCP flow control.
+public class BridgeServer implements AutoCloseable {
+
+    static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+    private static final Logger LOGGER = Logger.getLogger(BridgeServer.class.getName());
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final Publisher target;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final SocketAddress localAddress;
+    private final Thread eventLoop;
+    private volatile boolean closed;
+
+    // Binds the address; use LocalSockets.loopback(0) for any free port
+    public BridgeServer(Publisher target, SocketAddress address) throws IOException {
+        this.target = target;
+        this.selector = Selector.open();
+        this.server = LocalSockets.openServer(address);
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        this.localAddress = server.getLocalAddress();
+        this.eventLoop = new Thread(this::run, "bridge-server");
+        eventLoop.setDaemon(true);
+        eventLoop.start();
+    }
+
+    public SocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+        try {
+            eventLoop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LocalSockets.deleteSocketFile(localAddress);
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // the selector itself is broken: stop serving rather than spin
+            LOGGER.log(Level.SEVERE, "Bridge server stopped: selector failed", e);
+            closed = true;
+        } catch (ClosedSelectorException ignored) {
+            // closed while selecting
+        } finally {
+            closeQuietly();
+        }
+    }
+
+    // A failed accept only loses that one connection, never the server
+    private void accept() {
+        SocketChannel channel;
+        try {
+            channel = server.accept();
+        } catch (IOException e) {
+            return;  // e.g. out of file descriptors: the next select retries
+        }
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new FrameReader());
+        } catch (IOException e) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already failing
+            }
+        }
+    }
+
+    // A broken or misbehaving connection is dropped without affecting the
+    // others, including one whose message the Publisher refuses (e.g. too
+    // large for its MessageLog)
+    private void read(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        try {
+            if (!((FrameReader) key.attachment()).read(channel)) {
+                key.cancel();
+                channel.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Dropping bridge connection", e);
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already failing
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {
+                // best effort on shutdown
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // best effort on shutdown
+        }
+    }
+
+    // Per-connection decoder for frames of [int length][UTF-8 bytes]
+    private final class FrameReader {
+        private ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+
+        // Returns false at end of stream
+        boolean read(SocketChannel channel) throws IOException {
+            int count;
+            while ((count = channel.read(buffer)) > 0) {
+                buffer.flip();
+                deliverFrames();
+                buffer.compact();
+            }
+            return count >= 0;
+        }
+
+        private void deliverFrames() throws IOException {
+            while (buffer.remaining() >= Integer.BYTES) {
+                int length = buffer.getInt(buffer.position());
+                if (length < 0 || length > MAX_FRAME_BYTES) {
+                    throw new IOException("Bad frame length " + length);
+                }
+                if (buffer.remaining() < Integer.BYTES + length) {
+                    ensureCapacity(Integer.BYTES + length);
+                    return;
+                }
+                int start = buffer.position() + Integer.BYTES;
+                String message = new String(buffer.array(), buffer.arrayOffset() + start,
+                        length, StandardCharsets.UTF_8);
+                buffer.position(start + length);
+                target.send(message);
+            }
+        }
+
+        // Grows the buffer, still in read mode, to hold a large frame
+        private void ensureCapacity(int frameBytes) {
+            if (frameBytes > buffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(frameBytes, buffer.capacity() * 2));
+                larger.put(buffer);
+                larger.flip();
+                buffer = larger;
+            }
+        }
+    }
+}
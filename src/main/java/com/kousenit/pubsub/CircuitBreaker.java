@@ -0,0 +1,97 @@
+package com.kousenit.pubsub;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// State machine behind CircuitBreakerSettings, one per registration.
+// While closed, tryAcquire is a volatile read and record a single CAS on
+// the packed window counters; only state changes take the lock.
+final class CircuitBreaker {
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final long CALL = 1L << 32;  // calls in the high half, bad calls in the low
+
+    private final CircuitBreakerSettings settings;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final AtomicLong window = new AtomicLong();
+
+    private volatile State state = State.CLOSED;
+    private volatile CircuitOpenException openException;
+    private long openedAt;  // guarded by this
+
+    CircuitBreaker(CircuitBreakerSettings settings) {
+        this.settings = settings;
+        this.slowCallNanos = settings.getSlowCallThreshold() == null
+                ? Long.MAX_VALUE : settings.getSlowCallThreshold().toNanos();
+        this.openNanos = settings.getOpenDuration().toNanos();
+    }
+
+    CircuitBreakerSettings getSettings() {
+        return settings;
+    }
+
+    // While half-open, only one trial call is let through at a time
+    boolean tryAcquire() {
+        return state == State.CLOSED || tryAcquireSlow();
+    }
+
+    void record(boolean failed, long elapsedNanos) {
+        boolean bad = failed || elapsedNanos > slowCallNanos;
+        if (state != State.CLOSED) {
+            recordSlow(bad);
+            return;
+        }
+        long counts = window.addAndGet(bad ? CALL + 1 : CALL);
+        int calls = (int) (counts >>> 32);
+        // whoever resets the full window decides whether it opens the circuit
+        if (calls >= settings.getWindowSize() && window.compareAndSet(counts, 0)) {
+            int badCalls = (int) counts;
+            if (badCalls >= settings.getFailureRateThreshold() * calls) {
+                open(badCalls, calls);
+            }
+        }
+    }
+
+    boolean isOpen() {
+        return state != State.CLOSED;
+    }
+
+    CircuitOpenException getOpenException() {
+        return openException;
+    }
+
+    private synchronized boolean tryAcquireSlow() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    // Results of calls let through before the circuit opened are ignored
+    private synchronized void recordSlow(boolean bad) {
+        if (state != State.HALF_OPEN) {
+            return;
+        }
+        if (bad) {
+            open(1, 1);
+        } else {
+            window.set(0);
+            state = State.CLOSED;
+        }
+    }
+
+    private synchronized void open(int badCalls, int calls) {
+        if (state == State.OPEN) {
+            return;
+        }
+        openedAt = System.nanoTime();
+        openException = new CircuitOpenException(
+                String.format("Circuit open: %d of %d recent deliveries failed or were slow", badCalls, calls));
+        state = State.OPEN;
+    }
+}
@@ -0,0 +1,51 @@
+package com.kousenit.pubsub;
+
+import java.time.Duration;
+
+// Thresholds for the per-subscriber circuit breaker.
+// Calls are judged in tumbling windows of windowSize deliveries. A call is
+// bad if onNext throws or takes longer than slowCallThreshold. When the
+// share of bad calls in a window reaches failureRateThreshold, the breaker
+// opens and the subscriber is skipped for openDuration. After that one trial
+// delivery decides whether it closes again or stays open.
+// A null slowCallThreshold judges calls by exceptions only.
+public class CircuitBreakerSettings {
+
+    private final double failureRateThreshold;
+    private final Duration slowCallThreshold;
+    private final int windowSize;
+    private final Duration openDuration;
+
+    public CircuitBreakerSettings(double failureRateThreshold, Duration slowCallThreshold,
+                                  int windowSize, Duration openDuration) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("Failure rate must be in (0, 1]: " + failureRateThreshold);
+        }
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        if (openDuration == null || openDuration.isNegative()) {
+            throw new IllegalArgumentException("Open duration must not be negative: " + openDuration);
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallThreshold = slowCallThreshold;
+        this.windowSize = windowSize;
+        this.openDuration = openDuration;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public Duration getSlowCallThreshold() {
+        return slowCallThreshold;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+}
@@ -0,0 +1,13 @@
+package com.kousenit.pubsub;
+
+// Cause passed to the DeadLetterSink for messages skipped while a
+// subscriber's circuit breaker is open. One instance is shared per open
+// period, so it carries no stack trace.
+public class CircuitOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitOpenException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,122 @@
+package com.kousenit.pubsub;
+
+import com.kousenit.concurrent.VirtualThreads;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+// Latest-value-wins delivery for streams such as price ticks. Messages are
+// keyed by keyExtractor; while a key still has an undelivered message, a
+// newer one replaces it instead of queueing behind it. A worker thread
+// delivers pending keys in the order they first arrived, so a slow
+// subscriber sees at most one (the newest) message per key when it catches up.
+public class ConflatingSubscriber implements Subscriber, AutoCloseable {
+
+    private final Subscriber delegate;
+    private final DeliveryGuard guard;
+    private final Function<String, String> keyExtractor;
+    private final Object lock = new Object();
+    private final AtomicLong conflated = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final Thread worker;
+
+    // guarded by lock
+    private final Map<String, String> pending = new LinkedHashMap<>();
+    private boolean closed;
+
+    public ConflatingSubscriber(Subscriber delegate, Function<String, String> keyExtractor) {
+        this(delegate, keyExtractor, DeliveryGuard.standalone(delegate));
+    }
+
+    ConflatingSubscriber(Subscriber delegate, Function<String, String> keyExtractor, DeliveryGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+        this.keyExtractor = keyExtractor;
+        this.worker = VirtualThreads.factory("conflating-subscriber").newThread(this::drain);
+        worker.start();
+    }
+
+    @Override
+    public void onNext(String message) {
+        String key = keyExtractor.apply(message);
+        boolean wasEmpty;
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Subscriber is closed");
+            }
+            wasEmpty = pending.isEmpty();
+            if (pending.put(key, message) != null) {
+                conflated.incrementAndGet();
+            }
+        }
+        if (wasEmpty) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    // Messages replaced by a newer one before they were delivered
+    public long getConflatedCount() {
+        return conflated.get();
+    }
+
+    // Messages the subscriber accepted without throwing
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    // Delivers what is pending, then stops the worker.
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            String message;
+            boolean finished;
+            synchronized (lock) {
+                message = takeOldest();
+                finished = closed;
+            }
+            if (message != null) {
+                if (guard.deliver(delegate, message)) {
+                    delivered.incrementAndGet();
+                }
+            } else if (finished) {
+                return;
+            } else {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    // One entry at a time, so a key updated during delivery is delivered
+    // once more with its newest value, never a stale one. Called with lock held.
+    private String takeOldest() {
+        Iterator<String> iterator = pending.values().iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        String message = iterator.next();
+        iterator.remove();
+        return message;
+    }
+}
@@ -0,0 +1,14 @@
+package com.kousenit.pubsub;
+
+// Receives messages that could not be delivered to a subscriber, either
+// because onNext threw, or because the subscriber's circuit breaker was
+// open (cause is then a CircuitOpenException).
+@FunctionalInterface
+public interface DeadLetterSink {
+    void accept(Subscriber subscriber, String message, Throwable cause);
+
+    // Override to keep binary payloads without decoding them
+    default void acceptPayload(Subscriber subscriber, Payload payload, Throwable cause) {
+        accept(subscriber, payload.asString(), cause);
+    }
+}
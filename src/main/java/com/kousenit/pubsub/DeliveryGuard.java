@@ -0,0 +1,136 @@
+package com.kousenit.pubsub;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Failure handling for one subscription: delivery counts, the circuit
+// breaker and dead letters, all under the Publisher's DeliveryPolicy.
+// Registration uses it on the sending thread; the async wrappers share
+// their registration's guard and use it on their worker threads.
+final class DeliveryGuard {
+
+    private final Subscriber subscriber;  // as reported to the DeadLetterSink
+    private final DeliveryPolicy policy;
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private volatile CircuitBreaker breaker;
+
+    DeliveryGuard(Subscriber subscriber, DeliveryPolicy policy) {
+        this.subscriber = subscriber;
+        this.policy = policy;
+    }
+
+    // For wrappers constructed outside a Publisher: failures are only counted
+    static DeliveryGuard standalone(Subscriber subscriber) {
+        return new DeliveryGuard(subscriber, new DeliveryPolicy());
+    }
+
+    // Calls target.onNext unless the circuit is open; true if it returned normally
+    boolean deliver(Subscriber target, String message) {
+        if (!tryAcquire(message, null)) {
+            return false;
+        }
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            target.onNext(message);
+            succeeded = true;
+        } catch (Exception e) {
+            deadLetter(message, null, e);
+        } finally {
+            record(succeeded, start);
+        }
+        return succeeded;
+    }
+
+    // One breaker call for the whole batch; on failure every message is dead-lettered
+    void deliverBatch(BatchSubscriber target, List<String> batch) {
+        CircuitBreaker current = currentBreaker();
+        if (current != null && !current.tryAcquire()) {
+            skipped.increment();
+            for (String message : batch) {
+                deadLetter(message, null, current.getOpenException());
+            }
+            return;
+        }
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            target.onBatch(batch);
+            succeeded = true;
+        } catch (Exception e) {
+            for (String message : batch) {
+                deadLetter(message, null, e);
+            }
+        } finally {
+            record(succeeded, start);
+        }
+    }
+
+    // False when an open circuit skips the message, which is then already dead-lettered
+    boolean tryAcquire(String message, Payload payload) {
+        CircuitBreaker current = currentBreaker();
+        if (current == null || current.tryAcquire()) {
+            return true;
+        }
+        skipped.increment();
+        deadLetter(message, payload, current.getOpenException());
+        return false;
+    }
+
+    // Call from a finally block, so an Error still closes a half-open trial
+    void record(boolean succeeded, long startNanos) {
+        if (succeeded) {
+            delivered.increment();
+        } else {
+            failed.increment();
+        }
+        CircuitBreaker current = currentBreaker();
+        if (current != null) {
+            current.record(!succeeded, System.nanoTime() - startNanos);
+        }
+    }
+
+    // A message that never reached the subscriber, e.g. because its queue was full
+    void reject(String message, Payload payload, Exception cause) {
+        failed.increment();
+        deadLetter(message, payload, cause);
+    }
+
+    void deadLetter(String message, Payload payload, Exception cause) {
+        DeadLetterSink sink = policy.getDeadLetterSink();
+        try {
+            if (payload == null) {
+                sink.accept(subscriber, message, cause);
+            } else {
+                sink.acceptPayload(subscriber, payload, cause);
+            }
+        } catch (Exception ignored) {
+            // a broken sink must not break delivery to other subscribers
+        }
+    }
+
+    DeliveryStats getStats() {
+        CircuitBreaker current = breaker;
+        boolean open = current != null
+                && current.getSettings() == policy.getCircuitBreakerSettings()
+                && current.isOpen();
+        return new DeliveryStats(delivered.sum(), failed.sum(), skipped.sum(), open);
+    }
+
+    // null when circuit breaking is off; a new breaker starts closed
+    // whenever the publisher's settings change
+    private CircuitBreaker currentBreaker() {
+        CircuitBreakerSettings settings = policy.getCircuitBreakerSettings();
+        if (settings == null) {
+            return null;
+        }
+        CircuitBreaker current = breaker;
+        if (current == null || current.getSettings() != settings) {
+            current = new CircuitBreaker(settings);
+            breaker = current;
+        }
+        return current;
+    }
+}
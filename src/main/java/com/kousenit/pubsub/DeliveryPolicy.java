@@ -0,0 +1,36 @@
+package com.kousenit.pubsub;
+
+// Failure handling shared by all registrations of one Publisher.
+// Fields are volatile so settings can change while messages are in flight.
+final class DeliveryPolicy {
+
+    private static final DeadLetterSink DISCARD = new DeadLetterSink() {
+        @Override
+        public void accept(Subscriber subscriber, String message, Throwable cause) {
+        }
+
+        @Override
+        public void acceptPayload(Subscriber subscriber, Payload payload, Throwable cause) {
+        }
+    };
+
+    private volatile DeadLetterSink deadLetterSink = DISCARD;
+    private volatile CircuitBreakerSettings circuitBreakerSettings;
+
+    DeadLetterSink getDeadLetterSink() {
+        return deadLetterSink;
+    }
+
+    void setDeadLetterSink(DeadLetterSink sink) {
+        this.deadLetterSink = sink == null ? DISCARD : sink;
+    }
+
+    // null when circuit breaking is off
+    CircuitBreakerSettings getCircuitBreakerSettings() {
+        return circuitBreakerSettings;
+    }
+
+    void setCircuitBreakerSettings(CircuitBreakerSettings settings) {
+        this.circuitBreakerSettings = settings;
+    }
+}
@@ -0,0 +1,45 @@
+package com.kousenit.pubsub;
+
+// Point-in-time delivery counters for one subscription.
+public class DeliveryStats {
+
+    private final long delivered;
+    private final long failed;
+    private final long skipped;
+    private final boolean circuitOpen;
+
+    DeliveryStats(long delivered, long failed, long skipped, boolean circuitOpen) {
+        this.delivered = delivered;
+        this.failed = failed;
+        this.skipped = skipped;
+        this.circuitOpen = circuitOpen;
+    }
+
+    public long getDelivered() {
+        return delivered;
+    }
+
+    // onNext threw
+    public long getFailed() {
+        return failed;
+    }
+
+    // not attempted because the circuit breaker was open
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public boolean isCircuitOpen() {
+        return circuitOpen;
+    }
+
+    @Override
+    public String toString() {
+        return "DeliveryStats{" +
+                "delivered=" + delivered +
+                ", failed=" + failed +
+                ", skipped=" + skipped +
+                ", circuitOpen=" + circuitOpen +
+                '}';
+    }
+}
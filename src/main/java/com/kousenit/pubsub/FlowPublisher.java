@@ -0,0 +1,228 @@
+package com.kousenit.pubsub;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Exposes a Publisher as a java.util.concurrent.Flow.Publisher.
+// Each Flow subscriber gets a bounded buffer that is drained only as fast as
+// it requests items; the overflow policy decides what happens when the buffer
+// is full and there is no outstanding demand. BLOCK waits at most
+// MAX_BLOCK_NANOS for demand, then fails that subscriber, so one idle Flow
+// subscriber cannot stall Publisher.send indefinitely.
+public class FlowPublisher implements Flow.Publisher<String> {
+
+    static final long MAX_BLOCK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long BLOCK_PARK_NANOS = 50_000;
+
+    private final Publisher publisher;
+    private final int bufferCapacity;
+    private final OverflowPolicy policy;
+    private final Set<DemandSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    public FlowPublisher(Publisher publisher) {
+        this(publisher, Flow.defaultBufferSize(), OverflowPolicy.BLOCK);
+    }
+
+    public FlowPublisher(Publisher publisher, int bufferCapacity, OverflowPolicy policy) {
+        this.publisher = publisher;
+        this.bufferCapacity = bufferCapacity;
+        this.policy = policy;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        Objects.requireNonNull(subscriber);
+        DemandSubscription subscription = new DemandSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        if (subscription.cancelled) {
+            return;  // cancelled from within onSubscribe
+        }
+        if (closed) {
+            subscription.complete();
+            return;
+        }
+        subscriptions.add(subscription);
+        subscription.registration = publisher.subscribe(subscription);
+        if (subscription.cancelled) {
+            subscription.detach();  // cancelled before the registration was visible
+        } else if (closed) {
+            subscription.complete();  // lost a race with close()
+        }
+    }
+
+    // Completes every Flow subscriber once its buffered messages are delivered.
+    public void close() {
+        closed = true;
+        subscriptions.forEach(DemandSubscription::complete);
+    }
+
+    // Signals onError to every Flow subscriber, without waiting for buffered messages.
+    public void closeExceptionally(Throwable error) {
+        Objects.requireNonNull(error);
+        closed = true;
+        subscriptions.forEach(subscription -> subscription.fail(error));
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    private final class DemandSubscription implements Flow.Subscription, Subscriber {
+
+        private final Flow.Subscriber<? super String> downstream;
+        private final RingBuffer<String> buffer = new RingBuffer<>(bufferCapacity);
+        private final Object producerLock = new Object();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile Subscription registration;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private volatile Throwable error;
+
+        DemandSubscription(Flow.Subscriber<? super String> downstream) {
+            this.downstream = downstream;
+        }
+
+        // Called by Publisher.send
+        @Override
+        public void onNext(String message) {
+            synchronized (producerLock) {
+                long blockedSince = 0;
+                while (!buffer.offer(message)) {
+                    if (cancelled || done) {
+                        return;
+                    }
+                    switch (policy) {
+                        case DROP_NEWEST:
+                            return;
+                        case DROP_OLDEST:
+                            buffer.dropOldest();
+                            break;
+                        case FAIL:
+                            fail(new IllegalStateException(
+                                    "Buffer overflow: subscriber requested too few items"));
+                            return;
+                        case BLOCK:
+                        default:
+                            if (blockedSince == 0) {
+                                blockedSince = System.nanoTime();
+                            } else if (System.nanoTime() - blockedSince > MAX_BLOCK_NANOS) {
+                                fail(new IllegalStateException(
+                                        "Buffer full: no demand within " + MAX_BLOCK_NANOS + " ns"));
+                                return;
+                            }
+                            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    }
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Non-positive request: " + n));
+                return;
+            }
+            requested.accumulateAndGet(n, (current, more) -> {
+                long sum = current + more;
+                return sum < 0 ? Long.MAX_VALUE : sum;  // saturate on overflow
+            });
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            detach();
+        }
+
+        void complete() {
+            done = true;
+            detach();
+            drain();
+        }
+
+        void fail(Throwable throwable) {
+            error = throwable;
+            done = true;
+            detach();
+            drain();
+        }
+
+        private void detach() {
+            subscriptions.remove(this);
+            Subscription current = registration;
+            if (current != null) {
+                current.unsubscribe();
+            }
+        }
+
+        // Serializes all downstream signals: whichever thread increments wip
+        // from zero emits, and others just record that more work is pending.
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                long wanted = requested.get();
+                long emitted = 0;
+                while (!cancelled) {
+                    if (error != null) {
+                        terminate();
+                        return;
+                    }
+                    if (emitted == wanted) {
+                        break;
+                    }
+                    boolean finished = done;
+                    String message = buffer.poll();
+                    if (message == null) {
+                        if (finished) {
+                            terminate();
+                            return;
+                        }
+                        break;
+                    }
+                    try {
+                        downstream.onNext(message);
+                    } catch (Throwable t) {
+                        cancel();
+                        downstream.onError(t);
+                        return;
+                    }
+                    emitted++;
+                }
+                if (cancelled) {
+                    return;
+                }
+                if (done && error == null && buffer.isEmpty()) {
+                    terminate();
+                    return;
+                }
+                if (emitted != 0 && wanted != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void terminate() {
+            cancelled = true;
+            Throwable throwable = error;
+            if (throwable != null) {
+                downstream.onError(throwable);
+            } else {
+                downstream.onComplete();
+            }
+        }
+    }
+}
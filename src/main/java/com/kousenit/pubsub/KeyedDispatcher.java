@@ -0,0 +1,128 @@
+package com.kousenit.pubsub;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Ordered parallel delivery, for use with Publisher.sendOrdered.
+// Every subscriber gets a fixed set of serial lanes and each key hashes to
+// one of them, so messages with the same key reach a subscriber in the order
+// they were sent while different keys (and subscribers) run in parallel.
+// Lanes are not threads: an idle lane costs nothing, and a busy one
+// occupies one pool thread at a time.
+public class KeyedDispatcher implements AutoCloseable {
+
+    // Messages a lane delivers before yielding its thread to other lanes
+    private static final int MAX_MESSAGES_PER_RUN = 64;
+
+    private final ExecutorService executor;
+    private final int lanesPerSubscriber;
+    private final Map<Registration, Lane[]> lanes = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public KeyedDispatcher(int lanesPerSubscriber, int parallelism) {
+        if (lanesPerSubscriber < 1) {
+            throw new IllegalArgumentException("Lanes must be positive: " + lanesPerSubscriber);
+        }
+        this.lanesPerSubscriber = lanesPerSubscriber;
+        this.executor = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    }
+
+    void dispatch(Registration[] registrations, String key, String message) {
+        if (closed) {
+            throw new IllegalStateException("Dispatcher is closed");
+        }
+        if (lanes.size() > registrations.length) {
+            lanes.keySet().removeIf(registration -> !registration.isActive());
+        }
+        int lane = Math.floorMod(spread(key.hashCode()), lanesPerSubscriber);
+        for (Registration registration : registrations) {
+            lanes.computeIfAbsent(registration, this::createLanes)[lane].submit(message);
+        }
+    }
+
+    // Waits for every lane to drain, then stops the pool.
+    @Override
+    public void close() {
+        closed = true;
+        while (lanes.values().stream().flatMap(Arrays::stream).anyMatch(Lane::isBusy)) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        executor.shutdown();
+    }
+
+    private Lane[] createLanes(Registration registration) {
+        Lane[] created = new Lane[lanesPerSubscriber];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = new Lane(registration);
+        }
+        return created;
+    }
+
+    // Same bit mixing as HashMap, so keys differing only in high bits spread out
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private final class Lane implements Runnable {
+        private final Registration registration;
+        private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+
+        Lane(Registration registration) {
+            this.registration = registration;
+        }
+
+        void submit(String message) {
+            queue.offer(message);
+            if (pending.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // raced with close: nothing will ever drain this lane
+                    queue.clear();
+                    pending.set(0);
+                    throw new IllegalStateException("Dispatcher is closed", e);
+                }
+            }
+        }
+
+        boolean isBusy() {
+            return pending.get() > 0;
+        }
+
+        // Only one run is ever scheduled at a time, which keeps the lane serial.
+        // An Error from a subscriber still counts its message and reschedules
+        // the rest, so the lane never stays busy with nobody running it.
+        @Override
+        public void run() {
+            boolean more = true;
+            try {
+                for (int i = 0; i < MAX_MESSAGES_PER_RUN && more; i++) {
+                    String message = queue.poll();
+                    try {
+                        registration.deliver(message);
+                    } finally {
+                        more = pending.decrementAndGet() > 0;
+                    }
+                }
+            } finally {
+                if (more) {
+                    executor.execute(this);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.kousenit.pubsub;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Addresses and channels for the Publisher bridge. TCP works everywhere;
+// Unix domain sockets need Java 16+, and reflection keeps the code
+// compiling on Java 11, as in VirtualThreads.
+public final class LocalSockets {
+
+    private LocalSockets() {
+    }
+
+    public static SocketAddress loopback(int port) {
+        return new InetSocketAddress("127.0.0.1", port);
+    }
+
+    public static boolean isUnixDomainSupported() {
+        try {
+            unixFamily();
+            Class.forName("java.net.UnixDomainSocketAddress");
+            return true;
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // The socket file is created on bind and deleted when the server closes
+    public static SocketAddress unixDomain(Path path) {
+        try {
+            return (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress")
+                    .getMethod("of", Path.class)
+                    .invoke(null, path);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Unix domain sockets need Java 16+", e);
+        }
+    }
+
+    static ServerSocketChannel openServer(SocketAddress address) throws IOException {
+        if (address instanceof InetSocketAddress) {
+            return ServerSocketChannel.open();
+        }
+        return (ServerSocketChannel) open(ServerSocketChannel.class);
+    }
+
+    static SocketChannel open(SocketAddress address) throws IOException {
+        if (address instanceof InetSocketAddress) {
+            return SocketChannel.open();
+        }
+        return (SocketChannel) open(SocketChannel.class);
+    }
+
+    // Removes the file behind a bound Unix domain socket; no-op for TCP
+    static void deleteSocketFile(SocketAddress address) throws IOException {
+        if (address == null || address instanceof InetSocketAddress) {
+            return;
+        }
+        try {
+            Files.deleteIfExists((Path) address.getClass().getMethod("getPath").invoke(address));
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Cannot locate socket file for " + address, e);
+        }
+    }
+
+    private static Object open(Class<?> channelType) throws IOException {
+        try {
+            return channelType.getMethod("open", ProtocolFamily.class).invoke(null, unixFamily());
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            throw new UnsupportedOperationException("Unix domain sockets need Java 16+", e);
+        }
+    }
+
+    private static ProtocolFamily unixFamily() {
+        return StandardProtocolFamily.valueOf("UNIX");
+    }
+}
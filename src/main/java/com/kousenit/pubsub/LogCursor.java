@@ -0,0 +1,114 @@
+package com.kousenit.pubsub;
+
+import com.kousenit.concurrent.VirtualThreads;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// A durable subscription: a worker thread reads the MessageLog from the
+// cursor's offset and delivers each record in order, first catching up on
+// history and then following new appends. Save getOffset() to resume later
+// from the same place. PayloadSubscribers receive the mapped bytes directly.
+public class LogCursor implements Subscription {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final MessageLog log;
+    private final MessageLog.Reader reader;
+    private final Thread worker;
+    private volatile Registration registration;
+    private volatile long offset;
+    private final AtomicLong seekTo = new AtomicLong(-1);
+    private volatile boolean closed;
+    private volatile RuntimeException failure;
+
+    LogCursor(MessageLog log, long fromOffset) {
+        this.log = log;
+        this.reader = log.new Reader(fromOffset);
+        this.offset = fromOffset;
+        this.worker = VirtualThreads.factory("log-cursor").newThread(this::run);
+    }
+
+    void start(Registration registration) {
+        this.registration = registration;
+        worker.start();
+    }
+
+    // Offset of the next record to be delivered
+    public long getOffset() {
+        return offset;
+    }
+
+    // Continues delivery from another record offset, e.g. to replay.
+    // An offset inside a record is only detected when the cursor reaches
+    // it; delivery then stops and getFailure() says why.
+    public void seek(long offset) {
+        if (offset < 0 || offset > log.getEndOffset()) {
+            throw new IllegalArgumentException(
+                    "Offset " + offset + " is outside the log (end offset " + log.getEndOffset() + ")");
+        }
+        seekTo.set(offset);
+        LockSupport.unpark(worker);
+    }
+
+    @Override
+    public void unsubscribe() {
+        registration.unsubscribe();
+    }
+
+    // False once the cursor has stopped on a failure
+    @Override
+    public boolean isActive() {
+        return failure == null && registration.isActive();
+    }
+
+    // Why delivery stopped, or null while the cursor is running normally
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public DeliveryStats getStats() {
+        return registration.getStats();
+    }
+
+    void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+        if (Thread.currentThread() != worker) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            long target = seekTo.getAndSet(-1);
+            if (target >= 0) {
+                reader.seek(target);
+            }
+            boolean delivered;
+            try {
+                delivered = reader.next(this::deliver);
+            } catch (RuntimeException e) {
+                failure = e;
+                return;
+            }
+            offset = reader.getOffset();
+            if (!delivered) {
+                log.awaitAppend(offset, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void deliver(long recordOffset, long timestamp, ByteBuffer payload) {
+        // The slice stays valid after the call: the log is append-only and
+        // the mapping lives as long as the buffer is reachable.
+        registration.deliver(Payload.wrap(payload));
+    }
+}
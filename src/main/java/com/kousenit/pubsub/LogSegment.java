@@ -0,0 +1,135 @@
+package com.kousenit.pubsub;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// One memory-mapped file of a MessageLog. Records are laid out as
+//   int length (header + payload) | long timestamp | payload bytes
+// and a zero length marks the end of the written data.
+final class LogSegment {
+
+    static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    static final String SUFFIX = ".log";
+
+    private final long baseOffset;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final ByteBuffer writer;  // only used by the appending thread
+
+    private volatile int size;
+    private volatile boolean sealed;
+    private volatile long lastAppendMillis;
+
+    private LogSegment(long baseOffset, Path path, int capacity) throws IOException {
+        this.baseOffset = baseOffset;
+        this.path = path;
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(capacity, channel.size()));
+        this.writer = buffer.duplicate();
+        this.lastAppendMillis = System.currentTimeMillis();
+    }
+
+    static LogSegment create(Path directory, long baseOffset, int capacity) throws IOException {
+        return new LogSegment(baseOffset, directory.resolve(fileName(baseOffset)), capacity);
+    }
+
+    // Reopens an existing file and finds where its written data ends
+    static LogSegment recover(Path file, int capacity) throws IOException {
+        String name = file.getFileName().toString();
+        long baseOffset = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        LogSegment segment = new LogSegment(baseOffset, file, capacity);
+        int position = 0;
+        while (position + HEADER_BYTES <= segment.buffer.capacity()) {
+            int length = segment.buffer.getInt(position);
+            if (length < HEADER_BYTES || position + length > segment.buffer.capacity()) {
+                break;
+            }
+            position += length;
+        }
+        segment.size = position;
+        segment.lastAppendMillis = Files.getLastModifiedTime(file).toMillis();
+        return segment;
+    }
+
+    static String fileName(long baseOffset) {
+        return String.format("%020d%s", baseOffset, SUFFIX);
+    }
+
+    boolean hasRoomFor(int payloadBytes) {
+        return size + HEADER_BYTES + payloadBytes <= buffer.capacity();
+    }
+
+    // Writes the length last and publishes the record through the volatile
+    // size, so readers never see a partial record.
+    long append(ByteBuffer payload, long timestamp) {
+        int position = size;
+        int length = HEADER_BYTES + payload.remaining();
+        writer.position(position + Integer.BYTES);
+        writer.putLong(timestamp);
+        writer.put(payload);
+        buffer.putInt(position, length);
+        lastAppendMillis = timestamp;
+        size = position + length;
+        return baseOffset + position;
+    }
+
+    ByteBuffer readOnlyView() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    long getBaseOffset() {
+        return baseOffset;
+    }
+
+    long getEndOffset() {
+        return baseOffset + size;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    void seal() {
+        sealed = true;
+    }
+
+    long getLastAppendMillis() {
+        return lastAppendMillis;
+    }
+
+    void flush() {
+        buffer.force();
+    }
+
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The mapping stays readable until it is garbage collected, so readers
+    // already positioned in this segment can finish it.
+    void delete() {
+        close();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.kousenit.pubsub;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Append-only message log stored in memory-mapped segment files.
+// An offset is the log position of a record; the offset of the next record
+// is returned by append and by read, and stays valid across restarts.
+// Old segments are deleted once they are older than the retention time or
+// the log grows beyond the retention size. Retention runs whenever a
+// segment rolls; a log that stops growing is only trimmed when the owner
+// calls applyRetention, e.g. on a schedule. The active segment is never
+// deleted. Readers get read-only slices of the mapped files, so replaying
+// does not copy payloads onto the heap.
+public class MessageLog implements AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    // Receives one record; payload is only valid during the call
+    @FunctionalInterface
+    public interface RecordHandler {
+        void onRecord(long offset, long timestamp, ByteBuffer payload);
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long retentionMillis;
+    private final long retentionBytes;
+    private final ConcurrentSkipListMap<Long, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final Set<Thread> waiters = ConcurrentHashMap.newKeySet();
+    private volatile LogSegment active;
+
+    public MessageLog(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES, Duration.ofDays(7), Long.MAX_VALUE);
+    }
+
+    public MessageLog(Path directory, int segmentBytes,
+                      Duration retentionTime, long retentionBytes) throws IOException {
+        if (segmentBytes <= LogSegment.HEADER_BYTES) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.retentionMillis = retentionTime.toMillis();
+        this.retentionBytes = retentionBytes;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    public long append(String message) {
+        return append(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public synchronized long append(ByteBuffer payload) {
+        if (LogSegment.HEADER_BYTES + payload.remaining() > segmentBytes) {
+            throw new IllegalArgumentException("Message larger than a segment: " + payload.remaining());
+        }
+        if (!active.hasRoomFor(payload.remaining())) {
+            roll();
+        }
+        long offset = active.append(payload.duplicate(), System.currentTimeMillis());
+        for (Thread waiter : waiters) {
+            LockSupport.unpark(waiter);
+        }
+        return offset;
+    }
+
+    // Reads every record currently available from offset on, and returns
+    // the offset to continue from. Offsets before the start of the log
+    // (deleted by retention) continue from the oldest record still kept.
+    public long read(long fromOffset, RecordHandler handler) {
+        Reader reader = new Reader(fromOffset);
+        while (reader.next(handler)) {
+            // keep reading
+        }
+        return reader.getOffset();
+    }
+
+    public long getStartOffset() {
+        return segments.firstKey();
+    }
+
+    public long getEndOffset() {
+        return active.getEndOffset();
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    // Forces written records to disk
+    public synchronized void flush() {
+        segments.values().forEach(LogSegment::flush);
+    }
+
+    public synchronized void applyRetention() {
+        long now = System.currentTimeMillis();
+        long totalBytes = segments.values().stream().mapToLong(LogSegment::getSize).sum();
+        for (LogSegment segment : segments.values()) {
+            if (segment == active) {
+                break;
+            }
+            boolean expired = now - segment.getLastAppendMillis() > retentionMillis;
+            if (!expired && totalBytes <= retentionBytes) {
+                break;
+            }
+            segments.remove(segment.getBaseOffset());
+            totalBytes -= segment.getSize();
+            segment.delete();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        segments.values().forEach(LogSegment::close);
+    }
+
+    // Parks the calling thread until a record is appended at or after
+    // offset, or the timeout expires.
+    void awaitAppend(long offset, long timeoutNanos) {
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        try {
+            if (getEndOffset() <= offset) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            waiters.remove(current);
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(LogSegment.SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            LogSegment segment = LogSegment.recover(file, segmentBytes);
+            segments.put(segment.getBaseOffset(), segment);
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, LogSegment.create(directory, 0, segmentBytes));
+        }
+        active = segments.lastEntry().getValue();
+        segments.headMap(active.getBaseOffset()).values().forEach(LogSegment::seal);
+    }
+
+    private void roll() {
+        try {
+            LogSegment next = LogSegment.create(directory, active.getEndOffset(), segmentBytes);
+            segments.put(next.getBaseOffset(), next);
+            active.seal();
+            active = next;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        applyRetention();
+    }
+
+    // Sequential reader that keeps its place between calls. Not thread-safe.
+    final class Reader {
+        private long offset;
+        private LogSegment segment;
+        private ByteBuffer view;
+
+        Reader(long offset) {
+            this.offset = offset;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+
+        void seek(long offset) {
+            this.offset = offset;
+            this.segment = null;
+        }
+
+        // Hands the next record to handler; false if none is available yet
+        boolean next(RecordHandler handler) {
+            while (true) {
+                if (segment == null && !locate()) {
+                    return false;
+                }
+                int position = (int) (offset - segment.getBaseOffset());
+                // Read sealed before the size: a segment sealed after its
+                // final append is then never left with records unread
+                boolean sealed = segment.isSealed();
+                int size = segment.getSize();
+                if (position < size) {
+                    int length = view.getInt(position);
+                    if (length < LogSegment.HEADER_BYTES || length > size - position) {
+                        throw new IllegalStateException("No record starts at offset " + offset);
+                    }
+                    long timestamp = view.getLong(position + Integer.BYTES);
+                    view.limit(position + length).position(position + LogSegment.HEADER_BYTES);
+                    long recordOffset = offset;
+                    offset += length;
+                    handler.onRecord(recordOffset, timestamp, view.slice());
+                    view.clear();
+                    return true;
+                }
+                if (!sealed) {
+                    return false;
+                }
+                segment = null;  // fully consumed: continue in the next segment
+            }
+        }
+
+        private boolean locate() {
+            long start = getStartOffset();
+            if (offset < start) {
+                offset = start;
+            }
+            Map.Entry<Long, LogSegment> entry = segments.floorEntry(offset);
+            if (entry == null || offset > entry.getValue().getEndOffset()) {
+                return false;
+            }
+            segment = entry.getValue();
+            view = segment.readOnlyView();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.kousenit.pubsub;
+
+// What a bounded buffer does when a new message arrives and it is full.
+public enum OverflowPolicy {
+    BLOCK,          // wait for the consumer to make room
+    DROP_OLDEST,    // discard the oldest pending message
+    DROP_NEWEST,    // discard the incoming message
+    FAIL            // throw IllegalStateException
+}
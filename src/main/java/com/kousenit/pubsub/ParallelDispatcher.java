@@ -0,0 +1,93 @@
+package com.kousenit.pubsub;
+
+import com.kousenit.concurrent.VirtualThreads;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+// Parallel fan-out on a dedicated pool, for use with Publisher.sendParallel.
+// Subscribers are split into at most `parallelism` contiguous chunks, one task
+// per chunk, and the calling thread delivers the first chunk itself. Below
+// serialThreshold subscribers the message is delivered serially instead.
+public class ParallelDispatcher implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int serialThreshold;
+    private final boolean awaitCompletion;
+
+    public ParallelDispatcher(int parallelism, int serialThreshold, boolean awaitCompletion) {
+        this(new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true),
+                parallelism, serialThreshold, awaitCompletion);
+    }
+
+    private ParallelDispatcher(ExecutorService executor, int parallelism,
+                               int serialThreshold, boolean awaitCompletion) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.serialThreshold = serialThreshold;
+        this.awaitCompletion = awaitCompletion;
+    }
+
+    // Runs chunks on virtual threads when available, else on a fixed pool
+    public static ParallelDispatcher withVirtualThreads(int parallelism, int serialThreshold,
+                                                        boolean awaitCompletion) {
+        return new ParallelDispatcher(VirtualThreads.newExecutor("parallel-dispatcher", parallelism),
+                parallelism, serialThreshold, awaitCompletion);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    void dispatch(Registration[] registrations, String message) {
+        int count = registrations.length;
+        int chunks = Math.min(parallelism, count);
+        if (count < serialThreshold || chunks <= 1) {
+            deliver(registrations, 0, count, message);
+            return;
+        }
+        CountDownLatch done = awaitCompletion ? new CountDownLatch(chunks - 1) : null;
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            int from = start(chunk, chunks, count);
+            int to = start(chunk + 1, chunks, count);
+            executor.execute(() -> {
+                try {
+                    deliver(registrations, from, to, message);
+                } finally {
+                    // an Error in a chunk must not leave send waiting forever
+                    if (done != null) {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        deliver(registrations, 0, start(1, chunks, count), message);
+        if (done != null) {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static int start(int chunk, int chunks, int count) {
+        return (int) ((long) chunk * count / chunks);
+    }
+
+    private static void deliver(Registration[] registrations, int from, int to, String message) {
+        for (int i = from; i < to; i++) {
+            registrations[i].deliver(message);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.kousenit.pubsub;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// A message body that is either text or bytes. Byte payloads are shared
+// between subscribers as read-only views of one buffer, never copied; text
+// and bytes are converted (as UTF-8) at most once, on first request.
+//
+// Pooled payloads are reference counted (for other payloads retain and
+// release do nothing). The publisher holds a reference
+// for the duration of a send; a subscriber that keeps the payload after
+// onPayload returns must retain() it and release() it when done. When the
+// count reaches zero the buffer goes back to its pool.
+public final class Payload {
+
+    private final ByteBuffer pooledBuffer;
+    private final Consumer<ByteBuffer> recycler;
+    private final AtomicInteger references = new AtomicInteger(1);
+    private volatile ByteBuffer bytes;
+    private volatile String text;
+
+    private Payload(ByteBuffer bytes, String text, ByteBuffer pooledBuffer, Consumer<ByteBuffer> recycler) {
+        this.bytes = bytes;
+        this.text = text;
+        this.pooledBuffer = pooledBuffer;
+        this.recycler = recycler;
+    }
+
+    public static Payload of(String text) {
+        return new Payload(null, text, null, null);
+    }
+
+    // Shares the remaining bytes of buffer; later changes to them are visible
+    public static Payload wrap(ByteBuffer buffer) {
+        return new Payload(readOnlySlice(buffer), null, null, null);
+    }
+
+    // Hands buffer to recycler once the last reference is released
+    public static Payload pooled(ByteBuffer buffer, Consumer<ByteBuffer> recycler) {
+        return new Payload(readOnlySlice(buffer), null, buffer, recycler);
+    }
+
+    // A new read-only view each call, so callers can move its position freely
+    public ByteBuffer asByteBuffer() {
+        checkNotReleased();
+        ByteBuffer current = bytes;
+        if (current == null) {
+            current = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+            bytes = current;
+        }
+        return current.duplicate();
+    }
+
+    public String asString() {
+        checkNotReleased();
+        String current = text;
+        if (current == null) {
+            current = StandardCharsets.UTF_8.decode(bytes.duplicate()).toString();
+            text = current;
+        }
+        return current;
+    }
+
+    public Payload retain() {
+        if (recycler == null) {
+            return this;
+        }
+        references.getAndUpdate(count -> {
+            if (count <= 0) {
+                throw new IllegalStateException("Payload already released");
+            }
+            return count + 1;
+        });
+        return this;
+    }
+
+    // Returns true if this call released the last reference
+    public boolean release() {
+        if (recycler == null) {
+            return false;
+        }
+        int remaining = references.decrementAndGet();
+        if (remaining < 0) {
+            references.incrementAndGet();
+            throw new IllegalStateException("Payload already released");
+        }
+        if (remaining == 0) {
+            recycler.accept(pooledBuffer);
+            return true;
+        }
+        return false;
+    }
+
+    public int getReferenceCount() {
+        return references.get();
+    }
+
+    private void checkNotReleased() {
+        if (recycler != null && references.get() <= 0) {
+            throw new IllegalStateException("Payload already released");
+        }
+    }
+
+    private static ByteBuffer readOnlySlice(ByteBuffer buffer) {
+        return buffer.isReadOnly() ? buffer.slice() : buffer.asReadOnlyBuffer().slice();
+    }
+
+    @Override
+    public String toString() {
+        ByteBuffer current = bytes;
+        return current != null
+                ? "Payload[" + current.remaining() + " bytes]"
+                : "Payload[" + text + "]";
+    }
+}
@@ -0,0 +1,14 @@
+package com.kousenit.pubsub;
+
+// A subscriber that can consume binary payloads without decoding them.
+// Publisher.send(Payload) calls onPayload; plain Subscribers get
+// payload.asString() through onNext instead.
+public interface PayloadSubscriber extends Subscriber {
+
+    void onPayload(Payload payload);
+
+    @Override
+    default void onNext(String message) {
+        onPayload(Payload.of(message));
+    }
+}
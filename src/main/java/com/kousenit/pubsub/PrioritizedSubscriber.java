@@ -0,0 +1,13 @@
+package com.kousenit.pubsub;
+
+// A subscriber that is told each message's priority.
+// Plain Subscribers get every message through onNext, in send order.
+public interface PrioritizedSubscriber extends Subscriber {
+
+    void onNext(String message, Priority priority);
+
+    @Override
+    default void onNext(String message) {
+        onNext(message, Priority.NORMAL);
+    }
+}
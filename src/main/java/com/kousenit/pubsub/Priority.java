@@ -0,0 +1,8 @@
+package com.kousenit.pubsub;
+
+// Delivery priority for Publisher.send(String, Priority), highest first.
+public enum Priority {
+    HIGH,       // control messages, e.g. cache invalidations
+    NORMAL,
+    LOW         // bulk data
+}
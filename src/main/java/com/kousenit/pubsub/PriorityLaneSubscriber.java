@@ -0,0 +1,170 @@
+package com.kousenit.pubsub;
+
+import com.kousenit.concurrent.VirtualThreads;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Queues messages in one bounded lane per priority, and a worker thread
+// delivers from the highest non-empty lane first, so urgent messages do not
+// wait behind bulk ones. To keep low priorities from starving, a non-empty
+// lane that has been passed over starvationLimit times in a row is served
+// next, whatever is waiting above it.
+public class PriorityLaneSubscriber implements PrioritizedSubscriber, AutoCloseable {
+
+    public static final int DEFAULT_STARVATION_LIMIT = 32;
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final Subscriber delegate;
+    private final DeliveryGuard guard;
+    private final int laneCapacity;
+    private final OverflowPolicy policy;
+    private final int starvationLimit;
+    private final Object lock = new Object();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+
+    // guarded by lock, indexed by Priority.ordinal()
+    private final ArrayDeque<String>[] lanes;
+    private final int[] passedOver;
+    private boolean closed;
+
+    public PriorityLaneSubscriber(Subscriber delegate, int laneCapacity, OverflowPolicy policy) {
+        this(delegate, laneCapacity, policy, DEFAULT_STARVATION_LIMIT);
+    }
+
+    public PriorityLaneSubscriber(Subscriber delegate, int laneCapacity, OverflowPolicy policy,
+                                  int starvationLimit) {
+        this(delegate, laneCapacity, policy, starvationLimit, DeliveryGuard.standalone(delegate));
+    }
+
+    PriorityLaneSubscriber(Subscriber delegate, int laneCapacity, OverflowPolicy policy,
+                           int starvationLimit, DeliveryGuard guard) {
+        if (laneCapacity < 1) {
+            throw new IllegalArgumentException("Lane capacity must be positive: " + laneCapacity);
+        }
+        if (starvationLimit < 1) {
+            throw new IllegalArgumentException("Starvation limit must be positive: " + starvationLimit);
+        }
+        this.delegate = delegate;
+        this.guard = guard;
+        this.laneCapacity = laneCapacity;
+        this.policy = policy;
+        this.starvationLimit = starvationLimit;
+        @SuppressWarnings({"unchecked", "rawtypes"})  // generic array creation
+        ArrayDeque<String>[] created = new ArrayDeque[PRIORITIES.length];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = new ArrayDeque<>();
+        }
+        this.lanes = created;
+        this.passedOver = new int[PRIORITIES.length];
+        this.worker = VirtualThreads.factory("priority-subscriber").newThread(this::drain);
+        worker.start();
+    }
+
+    @Override
+    public void onNext(String message, Priority priority) {
+        synchronized (lock) {
+            ArrayDeque<String> lane = lanes[priority.ordinal()];
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("Subscriber is closed");
+                }
+                if (lane.size() < laneCapacity) {
+                    break;
+                }
+                switch (policy) {
+                    case DROP_NEWEST:
+                        dropped.incrementAndGet();
+                        return;
+                    case DROP_OLDEST:
+                        lane.pollFirst();
+                        dropped.incrementAndGet();
+                        break;
+                    case FAIL:
+                        throw new IllegalStateException(
+                                priority + " lane full (capacity " + laneCapacity + ")");
+                    case BLOCK:
+                    default:
+                        waitForChange();
+                }
+            }
+            lane.addLast(message);
+            lock.notifyAll();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getPendingCount(Priority priority) {
+        synchronized (lock) {
+            return lanes[priority.ordinal()].size();
+        }
+    }
+
+    // Stops accepting messages, then waits for the worker to drain every lane.
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            String message;
+            synchronized (lock) {
+                message = next();
+                while (message == null) {
+                    if (closed) {
+                        return;
+                    }
+                    waitForChange();
+                    message = next();
+                }
+                lock.notifyAll();  // room for blocked producers
+            }
+            guard.deliver(delegate, message);
+        }
+    }
+
+    // Called with lock held; null when every lane is empty
+    private String next() {
+        for (int i = lanes.length - 1; i > 0; i--) {
+            if (passedOver[i] >= starvationLimit && !lanes[i].isEmpty()) {
+                passedOver[i] = 0;
+                return lanes[i].pollFirst();
+            }
+        }
+        for (int i = 0; i < lanes.length; i++) {
+            if (!lanes[i].isEmpty()) {
+                for (int lower = i + 1; lower < lanes.length; lower++) {
+                    if (!lanes[lower].isEmpty()) {
+                        passedOver[lower]++;
+                    }
+                }
+                passedOver[i] = 0;
+                return lanes[i].pollFirst();
+            }
+        }
+        return null;
+    }
+
+    private void waitForChange() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting", e);
+        }
+    }
+}
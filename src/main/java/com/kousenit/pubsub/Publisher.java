@@ -1,36 +1,218 @@
 package com.kousenit.pubsub;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.kousenit.concurrent.VirtualThreads;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 // Adapted from a similar example in the Spock framework.
-public class Publisher {
+public class Publisher implements AutoCloseable {
+
+    private final DeliveryPolicy policy = new DeliveryPolicy();
+    private final SubscriberRegistry registry = new SubscriberRegistry(policy);
+    private final TopicMatcher topics = new TopicMatcher(policy);
+    private final SubscriberRegistry durable = new SubscriberRegistry(policy);
+    private final MessageLog log;
+    private volatile TimingWheel wheel;
+    private ExecutorService scheduledSends;  // guarded by this, with wheel
+    private boolean closed;  // likewise
+
+    public Publisher() {
+        this(null);
+    }
+
+    // Persistent mode: every broadcast message is appended to the log
+    // before delivery, so durable subscribers can replay it later.
+    public Publisher(MessageLog log) {
+        this.log = log;
+    }
+
+    public Subscription subscribe(Subscriber sub) {
+        return registry.add(sub);
+    }
+
+    // Delivers to sub on its own worker thread, so a slow subscriber
+    // cannot stall send. Unsubscribing drains and stops the worker.
+    public Subscription subscribeAsync(Subscriber sub, int bufferCapacity, OverflowPolicy policy) {
+        DeliveryGuard guard = registry.newGuard(sub);
+        AsyncSubscriber async = new AsyncSubscriber(sub, bufferCapacity, policy, guard);
+        return registry.addDeferred(async, guard, async::close);
+    }
 
-    private final List<Subscriber> subscribers = new ArrayList<>();
+    // Groups messages into batches of up to maxBatchSize, flushing a partial
+    // batch once its oldest message has waited maxLinger.
+    public Subscription subscribeBatched(BatchSubscriber sub, int maxBatchSize, Duration maxLinger) {
+        DeliveryGuard guard = registry.newGuard(sub);
+        BatchingSubscriber batching = new BatchingSubscriber(sub, maxBatchSize, maxLinger, guard);
+        return registry.addDeferred(batching, guard, batching::close);
+    }
 
-    public void subscribe(Subscriber sub) {
-        subscribers.add(sub);
+    // Latest-value-wins delivery: an undelivered message is replaced by a
+    // newer one with the same key, as computed by keyExtractor.
+    public Subscription subscribeConflating(Subscriber sub, Function<String, String> keyExtractor) {
+        DeliveryGuard guard = registry.newGuard(sub);
+        ConflatingSubscriber conflating = new ConflatingSubscriber(sub, keyExtractor, guard);
+        return registry.addDeferred(conflating, guard, conflating::close);
+    }
+
+    // Delivers on a worker thread that drains higher-priority lanes first,
+    // so messages sent with Priority.HIGH overtake queued bulk messages.
+    public Subscription subscribePrioritized(Subscriber sub, int laneCapacity, OverflowPolicy policy) {
+        DeliveryGuard guard = registry.newGuard(sub);
+        PriorityLaneSubscriber lanes = new PriorityLaneSubscriber(
+                sub, laneCapacity, policy, PriorityLaneSubscriber.DEFAULT_STARVATION_LIMIT, guard);
+        return registry.addDeferred(lanes, guard, lanes::close);
+    }
+
+    // Forwards every message to the Publisher behind a BridgeServer in
+    // another process, over TCP or a Unix domain socket (see LocalSockets).
+    public Subscription subscribeRemote(SocketAddress address) throws IOException {
+        RemoteSubscriber remote = new RemoteSubscriber(address);
+        return registry.add(remote, remote::close);
+    }
+
+    // Receives messages published to topics matching the pattern, where "*"
+    // matches one dot-separated segment and "#" matches zero or more.
+    public Subscription subscribe(String topicPattern, Subscriber sub) {
+        return topics.add(topicPattern, sub);
+    }
+
+    // Delivers every logged message from fromOffset on, in order, on the
+    // cursor's own thread; then keeps following new messages.
+    public LogCursor subscribeDurable(Subscriber sub, long fromOffset) {
+        if (log == null) {
+            throw new IllegalStateException("Publisher has no message log");
+        }
+        LogCursor cursor = new LogCursor(log, fromOffset);
+        cursor.start(durable.add(sub, cursor::close));
+        return cursor;
+    }
+
+    // Receives every message a subscriber failed on or skipped; null discards them
+    public void setDeadLetterSink(DeadLetterSink sink) {
+        policy.setDeadLetterSink(sink);
+    }
+
+    // Skips subscribers that keep failing or are too slow; null turns it off
+    public void setCircuitBreaker(CircuitBreakerSettings settings) {
+        policy.setCircuitBreakerSettings(settings);
+    }
+
+    public int getSubscriberCount() {
+        return registry.size();
     }
 
     // Want to test this method.
     public void send(String message) {
-        for (Subscriber sub : subscribers) {
-            try {
-                sub.onNext(message);
-            } catch (Exception ignored) {
-                // evil, but what can you do?
+        record(message);
+        for (Registration registration : registry.snapshot()) {
+            registration.deliver(message);
+        }
+    }
+
+    // Prioritized subscribers queue the message in the priority's lane;
+    // plain subscribers receive it just as with send(message).
+    public void send(String message, Priority priority) {
+        record(message);
+        for (Registration registration : registry.snapshot()) {
+            registration.deliver(message, priority);
+        }
+    }
+
+    // Binary-aware send: PayloadSubscribers share the payload's bytes without
+    // copying, plain subscribers get its text. Releases the caller's
+    // reference to a pooled payload once every subscriber has returned.
+    public void send(Payload payload) {
+        try {
+            if (log != null) {
+                log.append(payload.asByteBuffer());
+            }
+            for (Registration registration : registry.snapshot()) {
+                registration.deliver(payload);
             }
+        } finally {
+            payload.release();
         }
     }
 
+    // Delivers only to subscribers whose topic pattern matches
+    public void publish(String topic, String message) {
+        topics.forEachMatch(topic, registration -> registration.deliver(message));
+    }
+
     public void sendParallel(String message) {
-        subscribers.parallelStream().forEach(sub -> {
-            try {
-                sub.onNext(message);
-            } catch (Exception ignored) {
+        record(message);
+        Arrays.stream(registry.snapshot())
+                .parallel()
+                .forEach(registration -> registration.deliver(message));
+    }
+
+    // Like sendParallel, but on the dispatcher's own pool instead of the common pool
+    public void sendParallel(String message, ParallelDispatcher dispatcher) {
+        record(message);
+        dispatcher.dispatch(registry.snapshot(), message);
+    }
+
+    // Messages with the same key reach each subscriber in order;
+    // different keys are delivered in parallel.
+    public void sendOrdered(String key, String message, KeyedDispatcher dispatcher) {
+        record(message);
+        dispatcher.dispatch(registry.snapshot(), key, message);
+    }
+
+    // Delivers the message through send once the delay has passed,
+    // unless the returned Timeout is cancelled first.
+    public Timeout sendAfter(Duration delay, String message) {
+        return timingWheel().schedule(() -> send(message), delay.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public Timeout sendAt(Instant time, String message) {
+        return sendAfter(Duration.between(Instant.now(), time), message);
+    }
+
+    // Stops the threads behind sendAfter and sendAt; scheduled messages
+    // that are not yet due are never sent. Subscriptions are unaffected.
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (wheel == null) {
+                return;
             }
-        });
+            wheel.close();  // waits for the ticker, which hands tasks to scheduledSends
+            scheduledSends.shutdown();
+        }
     }
 
-}
+    // Started on first use; due messages are sent one at a time, in deadline order
+    private TimingWheel timingWheel() {
+        TimingWheel result = wheel;
+        if (result == null) {
+            synchronized (this) {
+                if (closed) {
+                    throw new IllegalStateException("Publisher is closed");
+                }
+                result = wheel;
+                if (result == null) {
+                    scheduledSends = Executors.newSingleThreadExecutor(VirtualThreads.factory("scheduled-send"));
+                    result = new TimingWheel(Duration.ofMillis(1), 512, scheduledSends);
+                    wheel = result;
+                }
+            }
+        }
+        return result;
+    }
 
+    private void record(String message) {
+        if (log != null) {
+            log.append(message);
+        }
+    }
+}
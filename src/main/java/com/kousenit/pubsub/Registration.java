@@ -0,0 +1,104 @@
+package com.kousenit.pubsub;
+
+// One entry in a SubscriberRegistry. The same Subscriber may be registered
+// more than once, so each subscribe call gets its own Registration.
+final class Registration implements Subscription {
+
+    private final Subscriber subscriber;
+    private final PayloadSubscriber payloadSubscriber;  // null for plain subscribers
+    private final PrioritizedSubscriber prioritizedSubscriber;  // likewise
+    private final SubscriberRegistry registry;
+    private final DeliveryGuard guard;
+    private final boolean deferred;  // subscriber is an async wrapper sharing the guard
+    private final Runnable onUnsubscribe;
+    private volatile boolean active = true;
+
+    Registration(Subscriber subscriber, SubscriberRegistry registry,
+                 DeliveryGuard guard, boolean deferred, Runnable onUnsubscribe) {
+        this.subscriber = subscriber;
+        this.payloadSubscriber = subscriber instanceof PayloadSubscriber
+                ? (PayloadSubscriber) subscriber : null;
+        this.prioritizedSubscriber = subscriber instanceof PrioritizedSubscriber
+                ? (PrioritizedSubscriber) subscriber : null;
+        this.registry = registry;
+        this.guard = guard;
+        this.deferred = deferred;
+        this.onUnsubscribe = onUnsubscribe;
+    }
+
+    Subscriber getSubscriber() {
+        return subscriber;
+    }
+
+    void deliver(String message) {
+        deliver(message, null, null);
+    }
+
+    // Prioritized subscribers are told the priority, others just get the message
+    void deliver(String message, Priority priority) {
+        deliver(message, null, priority);
+    }
+
+    // Payload subscribers get the shared payload, others its text
+    void deliver(Payload payload) {
+        deliver(null, payload, null);
+    }
+
+    private void deliver(String message, Payload payload, Priority priority) {
+        if (!active) {
+            return;  // unsubscribed, but still in a snapshot taken before the swap
+        }
+        if (deferred) {
+            // the wrapper delivers later through the same guard; here only refusals count
+            try {
+                invoke(message, payload, priority);
+            } catch (Exception e) {
+                guard.reject(message, payload, e);
+            }
+            return;
+        }
+        if (!guard.tryAcquire(message, payload)) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            invoke(message, payload, priority);
+            succeeded = true;
+        } catch (Exception e) {
+            guard.deadLetter(message, payload, e);
+        } finally {
+            guard.record(succeeded, start);
+        }
+    }
+
+    private void invoke(String message, Payload payload, Priority priority) {
+        if (priority != null && prioritizedSubscriber != null) {
+            prioritizedSubscriber.onNext(message, priority);
+        } else if (payload == null) {
+            subscriber.onNext(message);
+        } else if (payloadSubscriber != null) {
+            payloadSubscriber.onPayload(payload);
+        } else {
+            subscriber.onNext(payload.asString());
+        }
+    }
+
+    @Override
+    public DeliveryStats getStats() {
+        return guard.getStats();
+    }
+
+    @Override
+    public void unsubscribe() {
+        active = false;
+        if (registry.remove(this)) {
+            onUnsubscribe.run();
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+}
@@ -0,0 +1,174 @@
+package com.kousenit.pubsub;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Sending end of the cross-process bridge: a Subscriber that forwards every
+// message to a BridgeServer in another JVM. onNext only encodes a
+// length-prefixed frame and queues it; a selector thread writes queued
+// frames in batches with one gathering write each, waiting for OP_WRITE
+// when the socket buffer is full. Publishers block once maxPendingBytes
+// are queued, and fail once the connection has failed.
+public class RemoteSubscriber implements Subscriber, AutoCloseable {
+
+    public static final long DEFAULT_MAX_PENDING_BYTES = 8 * 1024 * 1024;
+
+    private static final int MAX_BATCH_FRAMES = 64;
+    private static final long BLOCK_PARK_NANOS = 50_000;
+
+    private final SocketChannel channel;
+    private final Selector selector;
+    private final SelectionKey key;
+    private final long maxPendingBytes;
+    private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicBoolean idle = new AtomicBoolean();
+    private final Thread eventLoop;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    // event loop thread only
+    private final ByteBuffer[] batch = new ByteBuffer[MAX_BATCH_FRAMES];
+    private int batchStart;
+    private int batchEnd;
+
+    public RemoteSubscriber(SocketAddress address) throws IOException {
+        this(address, DEFAULT_MAX_PENDING_BYTES);
+    }
+
+    public RemoteSubscriber(SocketAddress address, long maxPendingBytes) throws IOException {
+        this.maxPendingBytes = maxPendingBytes;
+        this.channel = LocalSockets.open(address);
+        channel.connect(address);
+        channel.configureBlocking(false);
+        this.selector = Selector.open();
+        this.key = channel.register(selector, 0);
+        this.eventLoop = new Thread(this::run, "remote-subscriber");
+        eventLoop.setDaemon(true);
+        eventLoop.start();
+    }
+
+    @Override
+    public void onNext(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > BridgeServer.MAX_FRAME_BYTES) {
+            throw new IllegalArgumentException("Message too large: " + bytes.length + " bytes");
+        }
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + bytes.length);
+        frame.putInt(bytes.length).put(bytes).flip();
+        while (true) {
+            checkOpen();
+            if (pendingBytes.get() <= maxPendingBytes) {
+                break;
+            }
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        pendingBytes.addAndGet(frame.remaining());
+        queue.offer(frame);
+        if (idle.compareAndSet(true, false)) {
+            selector.wakeup();
+        }
+    }
+
+    // Messages completely written to the socket
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public long getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    // Writes what is queued, then closes the connection.
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        try {
+            eventLoop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkOpen() {
+        if (failure != null) {
+            throw new IllegalStateException("Bridge connection failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Subscriber is closed");
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                boolean flushed = flush();
+                if (flushed) {
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    // re-check after advertising idle, so a wakeup is never missed
+                    idle.set(true);
+                    if (!queue.isEmpty() || closed) {
+                        idle.set(false);
+                        continue;
+                    }
+                }
+                key.interestOps(flushed ? 0 : SelectionKey.OP_WRITE);
+                selector.select();
+                selector.selectedKeys().clear();
+                idle.set(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        } catch (Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            try {
+                channel.close();
+                selector.close();
+            } catch (IOException ignored) {
+                // best effort on shutdown
+            }
+        }
+    }
+
+    // Returns false if the socket buffer filled up before the queue emptied
+    private boolean flush() throws IOException {
+        while (true) {
+            if (batchStart == batchEnd) {
+                batchStart = 0;
+                batchEnd = 0;
+                ByteBuffer frame;
+                while (batchEnd < MAX_BATCH_FRAMES && (frame = queue.poll()) != null) {
+                    batch[batchEnd++] = frame;
+                }
+                if (batchEnd == 0) {
+                    return true;
+                }
+            }
+            long written = channel.write(batch, batchStart, batchEnd - batchStart);
+            pendingBytes.addAndGet(-written);
+            while (batchStart < batchEnd && !batch[batchStart].hasRemaining()) {
+                batch[batchStart++] = null;
+                sent.incrementAndGet();
+            }
+            if (batchStart < batchEnd) {
+                return false;
+            }
+        }
+    }
+}
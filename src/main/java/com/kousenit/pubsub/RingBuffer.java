@@ -0,0 +1,70 @@
+package com.kousenit.pubsub;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Bounded single-producer/single-consumer ring buffer, in the style of the
+// LMAX Disruptor. Callers must make sure only one thread at a time calls
+// offer or dropOldest; poll may run concurrently on one consumer thread.
+// The head moves by CAS so the producer can discard the oldest element.
+final class RingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();  // next slot to consume
+    private final AtomicLong tail = new AtomicLong();  // next slot to fill
+
+    RingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    boolean offer(E element) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            return false;
+        }
+        slots.lazySet((int) t & mask, element);
+        tail.set(t + 1);
+        return true;
+    }
+
+    // Consumed slots are not cleared, because the producer may already be
+    // reusing them; at most capacity stale references stay reachable.
+    E poll() {
+        while (true) {
+            long h = head.get();
+            if (h >= tail.get()) {
+                return null;
+            }
+            E element = slots.get((int) h & mask);
+            if (head.compareAndSet(h, h + 1)) {
+                return element;
+            }
+        }
+    }
+
+    boolean dropOldest() {
+        long h = head.get();
+        return h < tail.get() && head.compareAndSet(h, h + 1);
+    }
+
+    boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
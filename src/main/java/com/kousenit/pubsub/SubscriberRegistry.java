@@ -0,0 +1,86 @@
+package com.kousenit.pubsub;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Copy-on-write registry: subscribe and unsubscribe swap in a new array,
+// so the send path just reads the current snapshot without locking or copying.
+final class SubscriberRegistry {
+
+    private static final Registration[] EMPTY = new Registration[0];
+
+    private final AtomicReference<Registration[]> registrations = new AtomicReference<>(EMPTY);
+    private final DeliveryPolicy policy;
+
+    SubscriberRegistry(DeliveryPolicy policy) {
+        this.policy = policy;
+    }
+
+    Registration add(Subscriber sub) {
+        return add(sub, () -> { });
+    }
+
+    // onUnsubscribe runs once, after the registration has been removed
+    Registration add(Subscriber sub, Runnable onUnsubscribe) {
+        return add(new Registration(sub, this, new DeliveryGuard(sub, policy), false, onUnsubscribe));
+    }
+
+    // For async wrappers: the wrapper delivers on its own thread through
+    // guard, which the registration shares for its stats
+    Registration addDeferred(Subscriber wrapper, DeliveryGuard guard, Runnable onUnsubscribe) {
+        return add(new Registration(wrapper, this, guard, true, onUnsubscribe));
+    }
+
+    DeliveryGuard newGuard(Subscriber sub) {
+        return new DeliveryGuard(sub, policy);
+    }
+
+    private Registration add(Registration registration) {
+        Registration[] current;
+        Registration[] updated;
+        do {
+            current = registrations.get();
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = registration;
+        } while (!registrations.compareAndSet(current, updated));
+        return registration;
+    }
+
+    boolean remove(Registration registration) {
+        Registration[] current;
+        Registration[] updated;
+        do {
+            current = registrations.get();
+            int index = indexOf(current, registration);
+            if (index < 0) {
+                return false;
+            }
+            if (current.length == 1) {
+                updated = EMPTY;
+            } else {
+                updated = new Registration[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, index);
+                System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+            }
+        } while (!registrations.compareAndSet(current, updated));
+        return true;
+    }
+
+    // Callers must not modify the returned array.
+    Registration[] snapshot() {
+        return registrations.get();
+    }
+
+    int size() {
+        return registrations.get().length;
+    }
+
+    private static int indexOf(Registration[] array, Registration registration) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == registration) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
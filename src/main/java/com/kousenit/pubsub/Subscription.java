@@ -0,0 +1,11 @@
+package com.kousenit.pubsub;
+
+// Handle returned by Publisher.subscribe, used to stop receiving messages.
+public interface Subscription {
+
+    void unsubscribe();
+
+    boolean isActive();
+
+    DeliveryStats getStats();
+}
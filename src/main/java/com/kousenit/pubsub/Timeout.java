@@ -0,0 +1,12 @@
+package com.kousenit.pubsub;
+
+// Handle for a task scheduled on a TimingWheel, e.g. a delayed message.
+public interface Timeout {
+
+    // Returns false if the task already ran or was cancelled
+    boolean cancel();
+
+    boolean isCancelled();
+
+    boolean isExpired();
+}
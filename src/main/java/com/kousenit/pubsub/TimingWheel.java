@@ -0,0 +1,297 @@
+package com.kousenit.pubsub;
+
+import com.kousenit.concurrent.VirtualThreads;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Hierarchical timing wheel (Varghese & Lauck) for large numbers of pending
+// timeouts. Level 0 has one bucket per tick; each higher level has buckets
+// wheelSize times wider, and its due bucket is cascaded into the levels
+// below as time reaches it. Scheduling and cancelling are O(1): callers only
+// push onto lock-free queues, and the single ticker thread owns the buckets
+// (doubly-linked lists) and links or unlinks entries on the next tick.
+// Due tasks are handed to the executor, never run on the ticker thread.
+// With nothing pending the ticker parks until the next schedule call
+// instead of waking every tick.
+public class TimingWheel implements AutoCloseable {
+
+    private static final int MAX_ADDS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final int bits;
+    private final int mask;
+    private final int levelCount;
+    private final Bucket[][] levels;
+    private final Executor executor;
+    private final Queue<Entry> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private final Thread ticker;
+    private volatile boolean running = true;
+    private volatile boolean idle;
+    private long currentTick;  // ticker thread only
+
+    public TimingWheel(Duration tick, int wheelSize, Executor executor) {
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickNanos = tick.toNanos();
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tick);
+        }
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.levelCount = (Long.SIZE - 2) / bits + 1;
+        this.levels = new Bucket[levelCount][];
+        this.executor = executor;
+        this.ticker = VirtualThreads.factory("timing-wheel").newThread(this::run);
+        ticker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("Timing wheel is closed");
+        }
+        long deadlineNanos = System.nanoTime() + Math.max(0, unit.toNanos(delay)) - startNanos;
+        // round up, so a task never runs before its delay has passed
+        Entry entry = new Entry(task, (deadlineNanos + tickNanos - 1) / tickNanos);
+        pending.incrementAndGet();
+        added.offer(entry);
+        if (idle) {
+            LockSupport.unpark(ticker);
+        }
+        return entry;
+    }
+
+    public long getPendingCount() {
+        return pending.get();
+    }
+
+    // Stops the ticker and waits for it, so the executor receives no more
+    // tasks once this returns; tasks that are not yet due never run.
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+        if (Thread.currentThread() != ticker) {
+            try {
+                ticker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            if (pending.get() == 0) {
+                awaitWork();
+                continue;
+            }
+            long deadline = startNanos + (currentTick + 1) * tickNanos;
+            long wait = deadline - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            currentTick++;
+            cascade();
+            unlinkCancelled();
+            placeAdded();
+            fire(bucket(0, (int) (currentTick & mask)));
+        }
+    }
+
+    // Every bucket is empty, apart from cancelled entries nobody will fire,
+    // so after the wait the wheel can jump straight to the current tick.
+    private void awaitWork() {
+        unlinkCancelled();
+        idle = true;
+        if (pending.get() == 0 && running) {
+            LockSupport.park(this);
+        }
+        idle = false;
+        currentTick = Math.max(currentTick, (System.nanoTime() - startNanos) / tickNanos - 1);
+    }
+
+    // When a level's lower digits roll over to zero, its current bucket
+    // is due to be spread over the levels below.
+    private void cascade() {
+        for (int level = levelCount - 1; level >= 1; level--) {
+            int shift = bits * level;
+            if ((currentTick & ((1L << shift) - 1)) == 0) {
+                Bucket bucket = existingBucket(level, (int) ((currentTick >>> shift) & mask));
+                if (bucket != null) {
+                    for (Entry entry = bucket.clear(); entry != null; ) {
+                        Entry next = entry.next;
+                        entry.next = null;
+                        if (entry.state.get() == Entry.WAITING) {
+                            place(entry);
+                        }
+                        entry = next;
+                    }
+                }
+            }
+        }
+    }
+
+    private void placeAdded() {
+        for (int i = 0; i < MAX_ADDS_PER_TICK; i++) {
+            Entry entry = added.poll();
+            if (entry == null) {
+                return;
+            }
+            if (entry.state.get() == Entry.WAITING) {
+                place(entry);
+            }
+        }
+    }
+
+    private void unlinkCancelled() {
+        for (Entry entry = cancelled.poll(); entry != null; entry = cancelled.poll()) {
+            if (entry.bucket != null) {
+                entry.bucket.remove(entry);
+            }
+        }
+    }
+
+    private void place(Entry entry) {
+        long delta = entry.deadlineTick - currentTick;
+        if (delta <= 0) {
+            expire(entry);
+            return;
+        }
+        int level = 0;
+        while (level < levelCount - 1 && delta >>> (bits * (level + 1)) != 0) {
+            level++;
+        }
+        int index = (int) ((entry.deadlineTick >>> (bits * level)) & mask);
+        bucket(level, index).add(entry);
+    }
+
+    private void fire(Bucket bucket) {
+        for (Entry entry = bucket.clear(); entry != null; ) {
+            Entry next = entry.next;
+            entry.next = null;
+            expire(entry);
+            entry = next;
+        }
+    }
+
+    private void expire(Entry entry) {
+        if (entry.state.compareAndSet(Entry.WAITING, Entry.EXPIRED)) {
+            pending.decrementAndGet();
+            executor.execute(entry.task);
+        }
+    }
+
+    private Bucket bucket(int level, int index) {
+        if (levels[level] == null) {
+            levels[level] = new Bucket[mask + 1];
+        }
+        Bucket bucket = levels[level][index];
+        if (bucket == null) {
+            bucket = new Bucket();
+            levels[level][index] = bucket;
+        }
+        return bucket;
+    }
+
+    private Bucket existingBucket(int level, int index) {
+        return levels[level] == null ? null : levels[level][index];
+    }
+
+    private final class Entry implements Timeout {
+        static final int WAITING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+
+        final Runnable task;
+        final long deadlineTick;
+        final AtomicInteger state = new AtomicInteger(WAITING);
+
+        // owned by the ticker thread
+        Bucket bucket;
+        Entry prev;
+        Entry next;
+
+        Entry(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) {
+                return false;
+            }
+            pending.decrementAndGet();
+            cancelled.offer(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    // Doubly-linked list, so cancelled entries unlink in O(1)
+    private static final class Bucket {
+        private Entry head;
+        private Entry tail;
+
+        void add(Entry entry) {
+            entry.bucket = this;
+            entry.prev = tail;
+            entry.next = null;
+            if (tail == null) {
+                head = entry;
+            } else {
+                tail.next = entry;
+            }
+            tail = entry;
+        }
+
+        void remove(Entry entry) {
+            if (entry.prev == null) {
+                head = entry.next;
+            } else {
+                entry.prev.next = entry.next;
+            }
+            if (entry.next == null) {
+                tail = entry.prev;
+            } else {
+                entry.next.prev = entry.prev;
+            }
+            entry.bucket = null;
+            entry.prev = null;
+            entry.next = null;
+        }
+
+        // Detaches and returns the whole list, linked through next
+        Entry clear() {
+            Entry first = head;
+            for (Entry entry = first; entry != null; entry = entry.next) {
+                entry.bucket = null;
+                entry.prev = null;
+            }
+            head = null;
+            tail = null;
+            return first;
+        }
+    }
+}
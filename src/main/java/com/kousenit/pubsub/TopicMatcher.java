@@ -0,0 +1,139 @@
+package com.kousenit.pubsub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Subscription trie for dot-separated topics such as "orders.eu.created".
+// In a pattern, "*" matches exactly one segment and "#" matches zero or more.
+// Matching walks only the branches that can match, so its cost depends on the
+// topic length and the number of matching subscriptions, not the total count.
+// Reads are lock-free; subscribe and unsubscribe serialize on a write lock.
+final class TopicMatcher {
+
+    private static final String ONE = "*";
+    private static final String ANY = "#";
+
+    private final DeliveryPolicy policy;
+    private final Node root;
+    private final Object writeLock = new Object();
+
+    TopicMatcher(DeliveryPolicy policy) {
+        this.policy = policy;
+        this.root = new Node(null, null, policy);
+    }
+
+    Registration add(String pattern, Subscriber sub) {
+        String[] segments = split(pattern, true);
+        synchronized (writeLock) {
+            Node node = root;
+            for (String segment : segments) {
+                Node parent = node;
+                node = node.children.computeIfAbsent(segment, key -> new Node(parent, key, policy));
+            }
+            Node target = node;
+            return target.subscribers.add(sub, () -> prune(target));
+        }
+    }
+
+    void forEachMatch(String topic, Consumer<Registration> action) {
+        String[] segments = split(topic, false);
+        List<Node> matches = new ArrayList<>();
+        collect(root, segments, 0, matches);
+        for (Node node : matches) {
+            for (Registration registration : node.subscribers.snapshot()) {
+                action.accept(registration);
+            }
+        }
+    }
+
+    private static void collect(Node node, String[] segments, int index, List<Node> matches) {
+        Node any = node.children.get(ANY);
+        if (any != null) {
+            // "#" may swallow any number of the remaining segments
+            for (int next = index; next <= segments.length; next++) {
+                collect(any, segments, next, matches);
+            }
+        }
+        if (index == segments.length) {
+            // Several "#" in one pattern can reach the same node more than once
+            if (node.subscribers.size() > 0 && !containsNode(matches, node)) {
+                matches.add(node);
+            }
+            return;
+        }
+        Node exact = node.children.get(segments[index]);
+        if (exact != null) {
+            collect(exact, segments, index + 1, matches);
+        }
+        Node one = node.children.get(ONE);
+        if (one != null) {
+            collect(one, segments, index + 1, matches);
+        }
+    }
+
+    private static boolean containsNode(List<Node> nodes, Node node) {
+        for (Node candidate : nodes) {
+            if (candidate == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Removes nodes that no longer lead to any subscription
+    private void prune(Node node) {
+        synchronized (writeLock) {
+            while (node.parent != null && node.children.isEmpty() && node.subscribers.size() == 0) {
+                node.parent.children.remove(node.segment, node);
+                node = node.parent;
+            }
+        }
+    }
+
+    private static String[] split(String topic, boolean wildcardsAllowed) {
+        if (topic == null || topic.isEmpty()) {
+            throw new IllegalArgumentException("Topic must not be empty");
+        }
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        while (true) {
+            int dot = topic.indexOf('.', start);
+            String segment = dot < 0 ? topic.substring(start) : topic.substring(start, dot);
+            checkSegment(topic, segment, wildcardsAllowed);
+            segments.add(segment);
+            if (dot < 0) {
+                return segments.toArray(new String[0]);
+            }
+            start = dot + 1;
+        }
+    }
+
+    private static void checkSegment(String topic, String segment, boolean wildcardsAllowed) {
+        if (segment.isEmpty()) {
+            throw new IllegalArgumentException("Empty segment in topic: " + topic);
+        }
+        boolean wildcard = segment.equals(ONE) || segment.equals(ANY);
+        if (wildcard && !wildcardsAllowed) {
+            throw new IllegalArgumentException("Wildcards are only allowed in subscriptions: " + topic);
+        }
+        if (!wildcard && (segment.contains(ONE) || segment.contains(ANY))) {
+            throw new IllegalArgumentException("Wildcards must be whole segments: " + topic);
+        }
+    }
+
+    private static final class Node {
+        private final Node parent;
+        private final String segment;
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+        private final SubscriberRegistry subscribers;
+
+        Node(Node parent, String segment, DeliveryPolicy policy) {
+            this.parent = parent;
+            this.segment = segment;
+            this.subscribers = new SubscriberRegistry(policy);
+        }
+    }
+}
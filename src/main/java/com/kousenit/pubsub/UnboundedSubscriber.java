@@ -0,0 +1,33 @@
+package com.kousenit.pubsub;
+
+import java.util.concurrent.Flow;
+
+// Lets an existing Subscriber consume any Flow.Publisher<String> by requesting
+// unbounded demand up front. Terminal signals are ignored, because Subscriber
+// has no way to receive them.
+public class UnboundedSubscriber implements Flow.Subscriber<String> {
+
+    private final Subscriber delegate;
+
+    public UnboundedSubscriber(Subscriber delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(String item) {
+        delegate.onNext(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+    }
+
+    @Override
+    public void onComplete() {
+    }
+}
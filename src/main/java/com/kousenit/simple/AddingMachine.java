@@ -1,5 +1,6 @@
 package com.kousenit.simple;
 
+import java.util.Arrays;
 import java.util.List;
 
 public class AddingMachine {
@@ -10,9 +11,18 @@ public class AddingMachine {
         this.numbers = numbers;
     }
 
+    // Primitive input: every strategy sums the array without boxing
+    public static AddingMachine of(int... numbers) {
+        return new AddingMachine(IntList.of(numbers));
+    }
+
+    // Totals are longs, so large inputs no longer wrap around
     @SuppressWarnings("ForLoopReplaceableByForEach")
-    public int getTotalUsingLoop() {
-        int total = 0;
+    public long getTotalUsingLoop() {
+        if (numbers instanceof IntList) {
+            return sum((IntList) numbers);
+        }
+        long total = 0;
         int count = numbers.size();
         for (int i = 0; i < count; i++) {
             total += numbers.get(i);
@@ -20,17 +30,57 @@ public class AddingMachine {
         return total;
     }
 
-    public int getTotalUsingIterable() {
-        int total = 0;
+    public long getTotalUsingIterable() {
+        if (numbers instanceof IntList) {
+            return sum((IntList) numbers);
+        }
+        long total = 0;
         for (int n : numbers) {
             total += n;
         }
         return total;
     }
 
-    public int getTotalUsingStream() {
+    public long getTotalUsingStream() {
+        if (numbers instanceof IntList) {
+            IntList list = (IntList) numbers;
+            return Arrays.stream(list.array(), 0, list.size())
+                    .asLongStream()
+                    .sum();
+        }
         return numbers.stream()
-                .mapToInt(Integer::valueOf)
+                .mapToLong(Integer::longValue)
+                .sum();
+    }
+
+    // Splits primitive input across the common fork/join pool;
+    // other lists fall back to a parallel stream
+    public long getTotalParallel() {
+        if (numbers instanceof IntList) {
+            IntList list = (IntList) numbers;
+            return IntSums.sumParallel(list.array(), 0, list.size());
+        }
+        return numbers.parallelStream()
+                .mapToLong(Integer::longValue)
                 .sum();
     }
+
+    // Single-threaded, but with the loop unrolled for instruction-level parallelism
+    public long getTotalUnrolled() {
+        if (numbers instanceof IntList) {
+            IntList list = (IntList) numbers;
+            return IntSums.sumUnrolled(list.array(), 0, list.size());
+        }
+        return getTotalUsingIterable();
+    }
+
+    // For callers that need an int: throws ArithmeticException
+    // instead of silently overflowing
+    public int getTotalExact() {
+        return Math.toIntExact(getTotalUsingIterable());
+    }
+
+    private static long sum(IntList list) {
+        return IntSums.sum(list.array(), 0, list.size());
+    }
 }
@@ -0,0 +1,242 @@
+package com.kousenit.simple;
+
+import com.kousenit.concurrent.VirtualThreads;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+// Moves log output off the caller's thread. Callers claim a slot in a
+// lock-free bounded ring (a Vyukov-style sequence per slot), format straight
+// into the slot's reusable buffer, and publish it; a single writer thread
+// drains the ring in batches, encoding console lines through reusable
+// buffers and flushing once per batch. In steady state the console path
+// allocates nothing. Log records are created on the calling thread, so
+// their time, thread and source method are the caller's; only the message
+// text is built later, on the writer. When the ring is full, callers wait.
+public class AsyncLogWriter implements AutoCloseable {
+
+    private static final int MAX_BATCH = 256;
+    private static final long FULL_PARK_NANOS = 50_000;
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final PrintStream out;
+    private final Slot[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final Thread writer;
+    private volatile long written;  // everything below this is out
+    private volatile boolean waiting;
+    private volatile boolean closed;
+
+    // writer thread only
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private CharBuffer chars = CharBuffer.allocate(1024);
+    private final ByteBuffer bytes = ByteBuffer.allocate(8192);
+    private long head;
+
+    public AsyncLogWriter(PrintStream out, int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.out = out;
+        this.slots = new Slot[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.writer = VirtualThreads.factory("async-log-writer").newThread(this::drain);
+        writer.start();
+    }
+
+    // Queues prefix + message + line separator for the console
+    public void println(CharSequence prefix, CharSequence message) {
+        long position = claim();
+        Slot slot = slots[(int) position & mask];
+        slot.logger = null;
+        slot.record = null;
+        slot.text.setLength(0);
+        slot.text.append(prefix).append(message).append(System.lineSeparator());
+        publish(position);
+    }
+
+    // Queues a log record, unless the level is disabled: then nothing is copied or queued.
+    // Like Logger.log, it finds the calling class and method by walking the stack.
+    public void log(Logger logger, Level level, CharSequence message) {
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        StackWalker.StackFrame caller = STACK_WALKER.walk(frames -> frames
+                .filter(frame -> !frame.getClassName().equals(AsyncLogWriter.class.getName()))
+                .findFirst()).orElse(null);
+        logp(logger, level, caller == null ? null : caller.getClassName(),
+                caller == null ? null : caller.getMethodName(), message);
+    }
+
+    // Like Logger.logp: the caller names the source, so no stack walk is needed
+    public void logp(Logger logger, Level level, String sourceClass, String sourceMethod,
+                     CharSequence message) {
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        LogRecord record = new LogRecord(level, null);
+        record.setLoggerName(logger.getName());
+        record.setSourceClassName(sourceClass);
+        record.setSourceMethodName(sourceMethod);
+        record.setResourceBundle(logger.getResourceBundle());
+        record.setResourceBundleName(logger.getResourceBundleName());
+        long position = claim();
+        Slot slot = slots[(int) position & mask];
+        slot.logger = logger;
+        slot.record = record;
+        slot.text.setLength(0);
+        slot.text.append(message);
+        publish(position);
+    }
+
+    // Waits until everything queued before the call has been written
+    public void flush() {
+        long target = tail.get();
+        while (written < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    // Writes what is queued, then stops the writer thread.
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long claim() {
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("Log writer is closed");
+            }
+            long position = tail.get();
+            long difference = sequences.get((int) position & mask) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    if (closed) {
+                        // the writer may have stopped before this claim moved tail
+                        abandon(position);
+                        throw new IllegalStateException("Log writer is closed");
+                    }
+                    return position;
+                }
+            } else if (difference < 0) {
+                // full: let the writer catch up
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+        }
+    }
+
+    // Publishes an empty console line, so the claimed slot does not block the ring
+    private void abandon(long position) {
+        Slot slot = slots[(int) position & mask];
+        slot.logger = null;
+        slot.record = null;
+        slot.text.setLength(0);
+        publish(position);
+    }
+
+    private void publish(long position) {
+        sequences.set((int) position & mask, position + 1);
+        if (waiting) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            int count = 0;
+            boolean console = false;
+            while (count < MAX_BATCH && sequences.get((int) head & mask) == head + 1) {
+                Slot slot = slots[(int) head & mask];
+                console |= write(slot);
+                sequences.set((int) head & mask, head + slots.length);
+                head++;
+                count++;
+            }
+            if (count > 0) {
+                if (console) {
+                    out.flush();
+                }
+                written = head;
+                continue;
+            }
+            if (closed && tail.get() == head) {
+                return;
+            }
+            waiting = true;
+            if (sequences.get((int) head & mask) != head + 1 && !closed) {
+                LockSupport.park(this);
+            }
+            waiting = false;
+        }
+    }
+
+    // Returns true if the slot went to the console
+    private boolean write(Slot slot) {
+        try {
+            if (slot.logger != null) {
+                slot.record.setMessage(slot.text.toString());
+                slot.logger.log(slot.record);
+                slot.logger = null;
+                slot.record = null;
+                return false;
+            }
+            encode(slot.text);
+        } catch (RuntimeException ignored) {
+            // a failing handler must not stop the writer
+        }
+        return true;
+    }
+
+    private void encode(StringBuilder text) {
+        int length = text.length();
+        if (chars.capacity() < length) {
+            chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+        }
+        text.getChars(0, length, chars.array(), 0);
+        chars.clear().limit(length);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, true);
+            out.write(bytes.array(), 0, bytes.position());
+            bytes.clear();
+            if (result.isUnderflow()) {
+                return;
+            }
+        }
+    }
+
+    private static final class Slot {
+        final StringBuilder text = new StringBuilder(128);
+        Logger logger;  // null for console lines
+        LogRecord record;
+    }
+}
@@ -0,0 +1,208 @@
+package com.kousenit.simple;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// HelloService that remembers up to maxEntries translated greetings per
+// (name, language). Lookups never take a lock. Every finished translation
+// holds one of maxEntries slots; once they are all taken, a new one evicts
+// the least recently used entry among a few consecutive slots from a random
+// start, which approximates LRU without ordering every access. A translation
+// still in progress takes no slot, so it can never be evicted and concurrent
+// misses for the same pair always wait for a single call to the
+// TranslateService. Failed translations are not cached.
+public class CachingHelloService extends HelloService {
+
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<Key, Cached> cache = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Cached> slots;
+    private final AtomicInteger filledSlots = new AtomicInteger();
+
+    public CachingHelloService(TranslateService translateService, int maxEntries) {
+        super(translateService);
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.slots = new AtomicReferenceArray<>(maxEntries);
+    }
+
+    @Override
+    public String greet(String name, String language) {
+        Cached pending = new Cached(new Key(name, language));
+        CompletableFuture<String> cached = claim(pending);
+        if (cached != null) {
+            return join(cached);
+        }
+        try {
+            pending.greeting.complete(super.greet(name, language));
+        } catch (Throwable t) {
+            abandon(pending, t);
+            throw t;
+        }
+        admit(pending);
+        return pending.greeting.join();
+    }
+
+    // Cached names are answered from the cache; the rest are
+    // translated together in one batch
+    @Override
+    public List<String> greetAll(Collection<String> names, String language) {
+        List<CompletableFuture<String>> results = new ArrayList<>(names.size());
+        List<Cached> missed = new ArrayList<>();
+        List<String> missedGreetings = new ArrayList<>();
+        for (String name : names) {
+            Cached pending = new Cached(new Key(name, language));
+            CompletableFuture<String> cached = claim(pending);
+            if (cached == null) {
+                missed.add(pending);
+                missedGreetings.add(greeting(name));
+                results.add(pending.greeting);
+            } else {
+                results.add(cached);
+            }
+        }
+        if (!missed.isEmpty()) {
+            try {
+                List<String> translations = getTranslateService().translateBatch(missedGreetings, language);
+                if (translations.size() != missed.size()) {
+                    throw new IllegalStateException(String.format(
+                            "translateBatch returned %d translations for %d texts",
+                            translations.size(), missed.size()));
+                }
+                for (int i = 0; i < missed.size(); i++) {
+                    missed.get(i).greeting.complete(translations.get(i));
+                }
+            } catch (Throwable t) {
+                for (Cached pending : missed) {
+                    abandon(pending, t);
+                }
+                throw t;
+            }
+            for (Cached pending : missed) {
+                admit(pending);
+            }
+        }
+        List<String> greetings = new ArrayList<>(results.size());
+        for (CompletableFuture<String> result : results) {
+            greetings.add(join(result));
+        }
+        return greetings;
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    // Returns the existing greeting, or null after installing pending,
+    // in which case the caller must complete it
+    private CompletableFuture<String> claim(Cached pending) {
+        Cached existing = cache.putIfAbsent(pending.key, pending);
+        if (existing != null) {
+            existing.lastUsed = System.nanoTime();
+            return existing.greeting;
+        }
+        return null;
+    }
+
+    // Gives a finished translation a slot, evicting another entry once all
+    // slots are taken. A slot whose entry has left the cache is reused as is.
+    private void admit(Cached entry) {
+        while (true) {
+            int filled = filledSlots.get();
+            if (filled < maxEntries) {
+                if (filledSlots.compareAndSet(filled, filled + 1)) {
+                    slots.set(filled, entry);
+                    return;
+                }
+                continue;
+            }
+            int sample = Math.min(EVICTION_SAMPLE, maxEntries);
+            int start = ThreadLocalRandom.current().nextInt(maxEntries);
+            int eldestIndex = -1;
+            Cached eldest = null;
+            for (int i = 0; i < sample; i++) {
+                int index = (start + i) % maxEntries;
+                Cached candidate = slots.get(index);
+                if (candidate == null) {
+                    continue;  // reserved, not yet filled
+                }
+                if (cache.get(candidate.key) != candidate) {
+                    if (slots.compareAndSet(index, candidate, entry)) {
+                        return;
+                    }
+                } else if (eldest == null || candidate.lastUsed < eldest.lastUsed) {
+                    eldestIndex = index;
+                    eldest = candidate;
+                }
+            }
+            if (eldest != null && cache.remove(eldest.key, eldest)
+                    && slots.compareAndSet(eldestIndex, eldest, entry)) {
+                return;
+            }
+        }
+    }
+
+    private void abandon(Cached pending, Throwable cause) {
+        cache.remove(pending.key, pending);
+        pending.greeting.completeExceptionally(cause);
+    }
+
+    private static String join(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Cached {
+        final Key key;
+        final CompletableFuture<String> greeting = new CompletableFuture<>();
+        volatile long lastUsed = System.nanoTime();
+
+        Cached(Key key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Key {
+        private final String name;
+        private final String language;
+
+        Key(String name, String language) {
+            this.name = name;
+            this.language = language;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return Objects.equals(name, other.name) && Objects.equals(language, other.language);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(name) + Objects.hashCode(language);
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package com.kousenit.simple;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 public class HelloService {
 
+    private static final String PREFIX = "Hello, ";
+
     private final TranslateService translateService;
 
     public HelloService(TranslateService translateService) {
@@ -9,7 +15,30 @@ public class HelloService {
     }
 
     public String greet(String name, String language) {
-        String greeting = "Hello, " + name + "!";
-        return translateService.translate(greeting, language);
+        return translateService.translate(greeting(name), language);
+    }
+
+    // One translation call for all the names, greetings in the same order
+    public List<String> greetAll(Collection<String> names, String language) {
+        List<String> greetings = new ArrayList<>(names.size());
+        for (String name : names) {
+            greetings.add(greeting(name));
+        }
+        return translateService.translateBatch(greetings, language);
+    }
+
+    TranslateService getTranslateService() {
+        return translateService;
+    }
+
+    // Sized up front, so building the string never regrows the buffer.
+    // A null name is greeted as "null", as string concatenation would.
+    static String greeting(String name) {
+        String text = String.valueOf(name);
+        return new StringBuilder(PREFIX.length() + text.length() + 1)
+                .append(PREFIX)
+                .append(text)
+                .append('!')
+                .toString();
     }
 }
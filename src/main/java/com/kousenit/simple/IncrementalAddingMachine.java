@@ -0,0 +1,119 @@
+package com.kousenit.simple;
+
+import java.util.Arrays;
+
+// A mutable AddingMachine for series that change between queries. The
+// running total is updated on every add, set and remove, so getTotal() is
+// O(1). A Fenwick (binary indexed) tree answers range sums in O(log n) and
+// absorbs appends and point updates in O(log n). Removing anything but the
+// last element shifts the indices, so the tree is rebuilt, in O(n), on the
+// next range query.
+public class IncrementalAddingMachine extends AddingMachine {
+
+    private final IntList values;
+    private long total;
+    private long[] tree = new long[17];  // 1-based
+    private boolean treeValid = true;
+
+    public IncrementalAddingMachine(int... initialValues) {
+        this(new IntList(Math.max(initialValues.length, 16)));
+        for (int value : initialValues) {
+            add(value);
+        }
+    }
+
+    private IncrementalAddingMachine(IntList values) {
+        super(values);
+        this.values = values;
+    }
+
+    public void add(int value) {
+        values.addInt(value);
+        total += value;
+        if (treeValid) {
+            append(values.size(), value);
+        }
+    }
+
+    // Returns the previous value
+    public int set(int index, int value) {
+        int old = values.setInt(index, value);
+        total += (long) value - old;
+        if (treeValid) {
+            update(index + 1, (long) value - old);
+        }
+        return old;
+    }
+
+    // Returns the removed value
+    public int remove(int index) {
+        int old = values.remove(index);
+        total -= old;
+        if (index != values.size()) {
+            treeValid = false;  // later elements moved down one index
+        }
+        return old;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    // Sum of the elements from fromIndex, inclusive, to toIndex, exclusive
+    public long getTotal(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > values.size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                    "fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", size: " + values.size());
+        }
+        if (!treeValid) {
+            rebuild();
+        }
+        return prefix(toIndex) - prefix(fromIndex);
+    }
+
+    // Sum of the first count elements
+    private long prefix(int count) {
+        long sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void update(int position, long delta) {
+        int size = values.size();
+        for (int i = position; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // tree[n] covers the elements (n - lowbit(n), n]
+    private void append(int position, int value) {
+        if (position == tree.length) {
+            tree = Arrays.copyOf(tree, tree.length * 2);
+        }
+        tree[position] = value + prefix(position - 1) - prefix(position - (position & -position));
+    }
+
+    private void rebuild() {
+        int size = values.size();
+        if (tree.length <= size) {
+            tree = new long[size + 1];
+        }
+        int[] array = values.array();
+        for (int i = 1; i <= size; i++) {
+            tree[i] = array[i - 1];
+        }
+        for (int i = 1; i <= size; i++) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+        treeValid = true;
+    }
+}
@@ -0,0 +1,76 @@
+package com.kousenit.simple;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Summation kernels over primitive int arrays.
+final class IntSums {
+
+    // 64K ints (256 KB) per leaf task: large enough to amortize the
+    // fork/join overhead, small enough to stay in L2 and balance load
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private IntSums() {
+    }
+
+    static long sum(int[] values, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+
+    // Four independent accumulators break the add dependency chain,
+    // which lets the JIT keep several adds in flight or vectorize them
+    static long sumUnrolled(int[] values, int from, int to) {
+        long s0 = 0;
+        long s1 = 0;
+        long s2 = 0;
+        long s3 = 0;
+        int i = from;
+        for (int end = to - 3; i < end; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < to; i++) {
+            s0 += values[i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    static long sumParallel(int[] values, int from, int to) {
+        if (to - from <= PARALLEL_THRESHOLD) {
+            return sumUnrolled(values, from, to);
+        }
+        return ForkJoinPool.commonPool().invoke(new SumTask(values, from, to));
+    }
+
+    private static final class SumTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] values;
+        private final int from;
+        private final int to;
+
+        SumTask(int[] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return sumUnrolled(values, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            SumTask left = new SumTask(values, from, middle);
+            left.fork();
+            long right = new SumTask(values, middle, to).compute();
+            return right + left.join();
+        }
+    }
+}
@@ -1,16 +1,32 @@
 package com.kousenit.simple;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class LoggingDemo {
 
+    private static final String PREFIX = "Doing useful stuff: ";
+
     private final Logger logger;
+    private final AsyncLogWriter writer;  // null means log on the caller's thread
 
     public LoggingDemo(Logger logger) {
+        this(logger, null);
+    }
+
+    // Async mode: output is queued and written by the writer's thread
+    public LoggingDemo(Logger logger, AsyncLogWriter writer) {
         this.logger = logger;
+        this.writer = writer;
     }
 
     public void doStuff(String message) {
+        if (writer != null) {
+            writer.println(PREFIX, message);
+            // names its own source, so the writer has no stack to walk
+            writer.logp(logger, Level.INFO, LoggingDemo.class.getName(), "doStuff", message);
+            return;
+        }
         System.out.printf("Doing useful stuff: %s%n", message);
         logger.info(message);
     }
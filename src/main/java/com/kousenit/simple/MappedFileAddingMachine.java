@@ -0,0 +1,180 @@
+package com.kousenit.simple;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+// Totals a binary file of little-endian int32 or int64 values without
+// loading it onto the heap. The file is memory-mapped one chunk at a time
+// and read through IntBuffer/LongBuffer views, so heap use is the same for
+// a kilobyte or a terabyte; getTotalParallel sums chunks on the common pool.
+// Totals throw ArithmeticException only if the whole file's sum does not
+// fit in a long, whatever the order of the values or chunks.
+public class MappedFileAddingMachine {
+
+    public enum Width {
+        INT32(Integer.BYTES),
+        INT64(Long.BYTES);
+
+        private final int bytes;
+
+        Width(int bytes) {
+            this.bytes = bytes;
+        }
+
+        public int getBytes() {
+            return bytes;
+        }
+    }
+
+    // Called after each chunk; in parallel mode, from several threads
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long bytesDone, long totalBytes);
+    }
+
+    public static final long DEFAULT_CHUNK_BYTES = 64L * 1024 * 1024;
+
+    private static final ProgressListener NO_PROGRESS = (done, total) -> { };
+
+    private final Path file;
+    private final Width width;
+    private final long chunkBytes;
+
+    public MappedFileAddingMachine(Path file, Width width) {
+        this(file, width, DEFAULT_CHUNK_BYTES);
+    }
+
+    public MappedFileAddingMachine(Path file, Width width, long chunkBytes) {
+        if (chunkBytes <= 0 || chunkBytes > Integer.MAX_VALUE || chunkBytes % width.getBytes() != 0) {
+            throw new IllegalArgumentException(
+                    "Chunk size must be a positive int multiple of " + width.getBytes() + ": " + chunkBytes);
+        }
+        this.file = file;
+        this.width = width;
+        this.chunkBytes = chunkBytes;
+    }
+
+    public long getTotal() throws IOException {
+        return getTotal(NO_PROGRESS);
+    }
+
+    public long getTotal(ProgressListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = checkedSize(channel);
+            Total total = Total.ZERO;
+            for (long position = 0; position < size; position += chunkBytes) {
+                total = total.plus(sumChunk(channel, position, size));
+                listener.onProgress(Math.min(position + chunkBytes, size), size);
+            }
+            return total.toLongExact();
+        }
+    }
+
+    public long getTotalParallel() throws IOException {
+        return getTotalParallel(NO_PROGRESS);
+    }
+
+    public long getTotalParallel(ProgressListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = checkedSize(channel);
+            long chunks = (size + chunkBytes - 1) / chunkBytes;
+            AtomicLong done = new AtomicLong();
+            return LongStream.range(0, chunks)
+                    .parallel()
+                    .mapToObj(chunk -> {
+                        long position = chunk * chunkBytes;
+                        Total sum = sumChunkUnchecked(channel, position, size);
+                        listener.onProgress(
+                                done.addAndGet(Math.min(chunkBytes, size - position)), size);
+                        return sum;
+                    })
+                    .reduce(Total.ZERO, Total::plus)
+                    .toLongExact();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long checkedSize(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size % width.getBytes() != 0) {
+            throw new IOException(file + " has " + size + " bytes, not a multiple of " + width.getBytes());
+        }
+        return size;
+    }
+
+    private Total sumChunkUnchecked(FileChannel channel, long position, long size) {
+        try {
+            return sumChunk(channel, position, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Plain additions in the loops, so they can be vectorized. A chunk has
+    // fewer than 2^31 values, so an int32 sum cannot overflow a long, and
+    // int64 values are summed as separate high and low 32-bit halves.
+    private Total sumChunk(FileChannel channel, long position, long size) throws IOException {
+        MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                position, Math.min(chunkBytes, size - position));
+        chunk.order(ByteOrder.LITTLE_ENDIAN);
+        if (width == Width.INT32) {
+            IntBuffer ints = chunk.asIntBuffer();
+            long total = 0;
+            for (int i = 0, n = ints.limit(); i < n; i++) {
+                total += ints.get(i);
+            }
+            return Total.of(total >> 32, total & Total.LOW_MASK);
+        }
+        LongBuffer longs = chunk.asLongBuffer();
+        long high = 0;
+        long low = 0;
+        for (int i = 0, n = longs.limit(); i < n; i++) {
+            long value = longs.get(i);
+            high += value >> 32;
+            low += value & Total.LOW_MASK;
+        }
+        return Total.of(high, low);
+    }
+
+    // An exact total, high * 2^32 + low, that may not fit in a long until
+    // the end. Adding is associative, so the one overflow check in
+    // toLongExact gives the same answer in any order.
+    private static final class Total {
+        static final long LOW_MASK = 0xFFFF_FFFFL;
+        static final Total ZERO = new Total(0, 0);
+
+        private final long high;
+        private final long low;  // below 2^32
+
+        private Total(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        // low may be any non-negative long; the carry moves into high
+        static Total of(long high, long low) {
+            return new Total(Math.addExact(high, low >>> 32), low & LOW_MASK);
+        }
+
+        Total plus(Total other) {
+            return of(Math.addExact(high, other.high), low + other.low);
+        }
+
+        long toLongExact() {
+            if (high < Integer.MIN_VALUE || high > Integer.MAX_VALUE) {
+                throw new ArithmeticException("long overflow");
+            }
+            return (high << 32) + low;
+        }
+    }
+}
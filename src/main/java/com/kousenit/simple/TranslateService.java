@@ -1,9 +1,134 @@
 package com.kousenit.simple;
 
+import com.kousenit.concurrent.VirtualThreads;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 public class TranslateService {
 
+    // Upper bound on translations in flight across all instances and
+    // translateToAll calls. The permits enforce it on virtual threads, where
+    // the executor is unbounded; the platform-thread pool has the same size.
+    static final int MAX_CONCURRENT_TRANSLATIONS = 32;
+
+    private static final Semaphore PERMITS = new Semaphore(MAX_CONCURRENT_TRANSLATIONS);
+    private static final ExecutorService FAN_OUT =
+            VirtualThreads.newExecutor("translate", MAX_CONCURRENT_TRANSLATIONS);
+
     // Translate from English to whatever locale is specified.
     public String translate(String text, String language) {
         return language + " translation: " + text;
     }
+
+    // Translates several texts in one call, results in the same order.
+    // Override to use a backend's bulk endpoint.
+    public List<String> translateBatch(List<String> texts, String language) {
+        List<String> translations = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            translations.add(translate(text, language));
+        }
+        return translations;
+    }
+
+    // Translates into every language concurrently. Each translation gets the
+    // full timeout from the moment it starts, and must start within the
+    // timeout too: one that cannot get a permit in time, e.g. because hung
+    // translations hold them all, is reported as timed out without running.
+    // So the call returns within about twice the timeout. Timed-out
+    // translations are cancelled.
+    public Translations translateToAll(String text, Collection<String> languages, Duration timeout) {
+        long timeoutNanos = timeout.toNanos();
+        long startDeadline = System.nanoTime() + timeoutNanos;
+        long callDeadline = startDeadline + timeoutNanos;
+        List<CompletableFuture<String>> results = new ArrayList<>(languages.size());
+        List<Future<?>> tasks = new ArrayList<>(languages.size());
+        for (String language : languages) {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            results.add(result);
+            tasks.add(FAN_OUT.submit(() -> translateWithPermit(text, language, result,
+                    startDeadline, timeoutNanos)));
+        }
+        Translations translations = new Translations();
+        int i = 0;
+        for (String language : languages) {
+            int index = i++;
+            CompletableFuture<String> result = results.get(index);
+            try {
+                translations.translated.put(language,
+                        result.get(callDeadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                // still queued, or running past its deadline on a stuck thread
+                result.completeExceptionally(e);
+                tasks.get(index).cancel(true);
+                translations.timedOut.add(language);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    tasks.get(index).cancel(true);
+                    translations.timedOut.add(language);
+                } else {
+                    translations.failed.put(language, e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                tasks.forEach(task -> task.cancel(true));
+                break;
+            }
+        }
+        return translations;
+    }
+
+    private void translateWithPermit(String text, String language, CompletableFuture<String> result,
+                                     long startDeadline, long timeoutNanos) {
+        try {
+            if (result.isDone()
+                    || !PERMITS.tryAcquire(startDeadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                result.completeExceptionally(new TimeoutException("Translation did not start in time"));
+                return;
+            }
+        } catch (InterruptedException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        try {
+            result.orTimeout(timeoutNanos, TimeUnit.NANOSECONDS);
+            result.complete(translate(text, language));
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        } finally {
+            PERMITS.release();
+        }
+    }
+
+    // Outcome of translateToAll, each part in the order the languages were given
+    public static final class Translations {
+        private final Map<String, String> translated = new LinkedHashMap<>();
+        private final List<String> timedOut = new ArrayList<>();
+        private final Map<String, Throwable> failed = new LinkedHashMap<>();
+
+        public Map<String, String> getTranslated() {
+            return Collections.unmodifiableMap(translated);
+        }
+
+        public List<String> getTimedOut() {
+            return Collections.unmodifiableList(timedOut);
+        }
+
+        // The exception each failed translation threw
+        public Map<String, Throwable> getFailed() {
+            return Collections.unmodifiableMap(failed);
+        }
+    }
 }
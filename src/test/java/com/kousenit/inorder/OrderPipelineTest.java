@@ -0,0 +1,136 @@
+package com.kousenit.inorder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class OrderPipelineTest {
+    private static final String ADDRESS = "1313 Mockingbird Lane, New York, NY 10001";
+
+    private final PaymentProcessor processor = mock(PaymentProcessor.class);
+    private final ShippingService shipping = mock(ShippingService.class);
+    private OrderPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        pipeline.close();
+    }
+
+    @Test
+    void stagesRunInOrderAndShortCircuitOnDecline() {
+        when(processor.authorizePayment(anyDouble())).thenAnswer(invocation -> (double) invocation.getArgument(0) < 1000);
+        when(processor.capturePayment()).thenReturn(true);
+        when(shipping.shipProduct(anyString())).thenReturn(true);
+        pipeline = new OrderPipeline(new PaymentService(processor), shipping, 4);
+
+        assertThat(pipeline.submit(new Order(100.0, ADDRESS)).join()).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(pipeline.submit(new Order(5000.0, "declined")).join()).isEqualTo(OrderStatus.PAYMENT_FAILED);
+
+        InOrder inOrder = inOrder(processor, shipping);
+        inOrder.verify(processor).authorizePayment(100.0);
+        inOrder.verify(processor).capturePayment();
+        inOrder.verify(shipping).shipProduct(ADDRESS);
+        inOrder.verify(processor).authorizePayment(5000.0);
+        verifyNoMoreInteractions(processor, shipping);
+    }
+
+    @Test
+    void failedCaptureSkipsShippingAndExceptionsPropagate() {
+        when(processor.authorizePayment(anyDouble())).thenReturn(true);
+        when(processor.capturePayment())
+                .thenReturn(false)
+                .thenThrow(new IllegalStateException("gateway down"));
+        pipeline = new OrderPipeline(new PaymentService(processor), shipping, 1);
+
+        assertThat(pipeline.submit(new Order(10.0, ADDRESS)).join()).isEqualTo(OrderStatus.PAYMENT_FAILED);
+        assertThatThrownBy(() -> pipeline.submit(new Order(20.0, ADDRESS)).join())
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("gateway down");
+        verify(shipping, never()).shipProduct(anyString());
+    }
+
+    @Test
+    void shippingOverlapsUpToTheLimitWhilePaymentsGoOneAtATime() throws Exception {
+        AtomicInteger paying = new AtomicInteger();
+        AtomicInteger maxPaying = new AtomicInteger();
+        AtomicInteger shippingNow = new AtomicInteger();
+        AtomicInteger maxShipping = new AtomicInteger();
+        when(processor.authorizePayment(anyDouble())).thenAnswer(invocation -> {
+            maxPaying.accumulateAndGet(paying.incrementAndGet(), Math::max);
+            Thread.sleep(10);
+            return true;
+        });
+        when(processor.capturePayment()).thenAnswer(invocation -> {
+            Thread.sleep(10);
+            paying.decrementAndGet();
+            return true;
+        });
+        when(shipping.shipProduct(anyString())).thenAnswer(invocation -> {
+            maxShipping.accumulateAndGet(shippingNow.incrementAndGet(), Math::max);
+            Thread.sleep(200);
+            shippingNow.decrementAndGet();
+            return true;
+        });
+        pipeline = new OrderPipeline(new PaymentService(processor), shipping, 4);
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            orders.add(new Order(i, ADDRESS));
+        }
+        List<OrderStatus> statuses = pipeline.submitAll(orders).get(10, TimeUnit.SECONDS);
+
+        assertThat(statuses).hasSize(8).containsOnly(OrderStatus.SHIPPED);
+        assertThat(maxShipping.get()).isGreaterThan(1).isLessThanOrEqualTo(4);
+        // one authorize/capture pair at a time, so captures never cross orders
+        assertThat(maxPaying.get()).isEqualTo(1);
+    }
+
+    @Test
+    void paymentsOverlapAcrossProcessorsButNeverOnOne() throws Exception {
+        // every authorization waits for a second one to be in progress
+        CountDownLatch overlapping = new CountDownLatch(2);
+        AtomicInteger interleaved = new AtomicInteger();
+        List<PaymentProcessor> processors = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            PaymentProcessor single = mock(PaymentProcessor.class);
+            AtomicBoolean inPair = new AtomicBoolean();
+            when(single.authorizePayment(anyDouble())).thenAnswer(invocation -> {
+                if (!inPair.compareAndSet(false, true)) {
+                    interleaved.incrementAndGet();
+                }
+                overlapping.countDown();
+                return overlapping.await(5, TimeUnit.SECONDS);
+            });
+            when(single.capturePayment()).thenAnswer(invocation -> {
+                inPair.set(false);
+                return true;
+            });
+            processors.add(single);
+        }
+        when(shipping.shipProduct(anyString())).thenReturn(true);
+        pipeline = new OrderPipeline(new PaymentService(processors), shipping, 8);
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            orders.add(new Order(i, ADDRESS));
+        }
+        List<OrderStatus> statuses = pipeline.submitAll(orders).get(10, TimeUnit.SECONDS);
+
+        assertThat(statuses).hasSize(16).containsOnly(OrderStatus.SHIPPED);
+        assertThat(interleaved.get()).isZero();
+    }
+}
@@ -7,6 +7,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -38,4 +43,43 @@ public class OrderServiceTest {
         inOrder.verify(paymentServiceMock).processPayment(amount);
         inOrder.verify(shippingServiceMock).shipProduct(address);
     }
+
+    @Test
+    public void processOrders() {
+        String home = "1313 Mockingbird Lane, New York, NY 10001";
+        String work = "221B Baker Street, London";
+        when(paymentServiceMock.processPayments(List.of(100.0, 50.0, 75.0)))
+                .thenReturn(List.of(true, false, true));
+        when(shippingServiceMock.shipBatch(List.of(home, work)))
+                .thenReturn(List.of(true, false));
+
+        List<OrderStatus> statuses = orderService.processOrders(List.of(
+                new Order(100.0, home), new Order(50.0, "nowhere"), new Order(75.0, work)));
+
+        assertEquals(List.of(OrderStatus.SHIPPED, OrderStatus.PAYMENT_FAILED, OrderStatus.SHIPPING_FAILED),
+                statuses);
+
+        // payments first, then only the paid orders ship
+        InOrder inOrder = inOrder(paymentServiceMock, shippingServiceMock);
+        inOrder.verify(paymentServiceMock).processPayments(List.of(100.0, 50.0, 75.0));
+        inOrder.verify(shippingServiceMock).shipBatch(List.of(home, work));
+        verifyNoMoreInteractions(paymentServiceMock, shippingServiceMock);
+    }
+
+    @Test
+    public void processOrdersRejectsWrongResultCount() {
+        when(paymentServiceMock.processPayments(List.of(100.0, 50.0)))
+                .thenReturn(List.of(true));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> orderService.processOrders(List.of(new Order(100.0, "here"), new Order(50.0, "there"))));
+        assertEquals("processPayments returned 1 results for 2 orders", e.getMessage());
+        verifyNoInteractions(shippingServiceMock);
+    }
+
+    @Test
+    public void ordersWithoutAddressCanBeCompared() {
+        assertEquals(new Order(10.0, null), new Order(10.0, null));
+        assertNotEquals(new Order(10.0, null), new Order(10.0, "home"));
+    }
 }
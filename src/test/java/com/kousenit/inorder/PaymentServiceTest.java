@@ -3,6 +3,17 @@ package com.kousenit.inorder;
 import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.Mockito.*;
@@ -29,4 +40,77 @@ class PaymentServiceTest {
         inOrder.verify(processor).authorizePayment(anyDouble());
         inOrder.verify(processor).capturePayment();
     }
-}
\ No newline at end of file
+
+    @Test
+    void processPayments() {
+        // use the real default batch methods, stub the single-payment ones
+        PaymentProcessor processor = mock(PaymentProcessor.class, CALLS_REAL_METHODS);
+        doReturn(true).when(processor).authorizePayment(100.0);
+        doReturn(false).when(processor).authorizePayment(200.0);
+        doReturn(true).when(processor).authorizePayment(300.0);
+        doReturn(true, false).when(processor).capturePayment();
+
+        PaymentService service = new PaymentService(processor);
+
+        assertEquals(List.of(true, false, false),
+                service.processPayments(List.of(100.0, 200.0, 300.0)));
+
+        // each capture right after its own authorization, none after a decline
+        InOrder inOrder = inOrder(processor);
+        inOrder.verify(processor).processBatch(List.of(100.0, 200.0, 300.0));
+        inOrder.verify(processor).authorizePayment(100.0);
+        inOrder.verify(processor).capturePayment();
+        inOrder.verify(processor).authorizePayment(200.0);
+        inOrder.verify(processor).authorizePayment(300.0);
+        inOrder.verify(processor).capturePayment();
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    void processPaymentsRejectsWrongResultCount() {
+        PaymentProcessor processor = mock(PaymentProcessor.class);
+        when(processor.processBatch(List.of(100.0, 200.0))).thenReturn(List.of(true));
+
+        PaymentService service = new PaymentService(processor);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> service.processPayments(List.of(100.0, 200.0)));
+        assertEquals("processBatch returned 1 results for 2 payments", e.getMessage());
+    }
+
+    @Test
+    void syncAndAsyncPaymentsNeverInterleaveOnOneProcessor() throws Exception {
+        PaymentProcessor processor = mock(PaymentProcessor.class);
+        AtomicBoolean inPair = new AtomicBoolean();
+        AtomicInteger interleaved = new AtomicInteger();
+        when(processor.authorizePayment(anyDouble())).thenAnswer(invocation -> {
+            if (!inPair.compareAndSet(false, true)) {
+                interleaved.incrementAndGet();
+            }
+            Thread.sleep(1);
+            return true;
+        });
+        when(processor.capturePayment()).thenAnswer(invocation -> {
+            inPair.set(false);
+            return true;
+        });
+        PaymentService service = new PaymentService(processor);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Boolean>> async = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                async.add(service.processPaymentAsync(i, executor));
+            }
+            for (int i = 0; i < 20; i++) {
+                assertTrue(service.processPayment(i));
+            }
+            for (CompletableFuture<Boolean> payment : async) {
+                assertTrue(payment.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(0, interleaved.get());
+        verify(processor, times(40)).capturePayment();
+    }
+}
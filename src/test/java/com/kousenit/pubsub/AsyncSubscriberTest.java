@@ -0,0 +1,163 @@
+package com.kousenit.pubsub;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class AsyncSubscriberTest {
+
+    @Test
+    void deliversMessagesInOrderOnAnotherThread() {
+        List<String> received = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        Publisher pub = new Publisher();
+        Subscription subscription = pub.subscribeAsync(message -> {
+            received.add(message);
+            threads.add(Thread.currentThread().getName());
+        }, 16, OverflowPolicy.BLOCK);
+
+        for (int i = 0; i < 100; i++) {
+            pub.send("message " + i);
+        }
+        subscription.unsubscribe();  // drains before returning
+
+        assertThat(received).hasSize(100)
+                .startsWith("message 0", "message 1")
+                .endsWith("message 99");
+        assertThat(threads).doesNotContain(Thread.currentThread().getName());
+    }
+
+    @Test
+    void slowSubscriberDoesNotStallPublisher() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Subscriber slow = message -> await(release);
+        Subscriber fast = mock(Subscriber.class);
+
+        Publisher pub = new Publisher();
+        Subscription slowSubscription = pub.subscribeAsync(slow, 4, OverflowPolicy.DROP_NEWEST);
+        pub.subscribe(fast);
+
+        for (int i = 0; i < 10; i++) {
+            pub.send("message " + i);
+        }
+
+        verify(fast, times(10)).onNext(anyString());
+        release.countDown();
+        slowSubscription.unsubscribe();
+    }
+
+    @Test
+    void dropNewestDiscardsIncomingMessages() {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        AsyncSubscriber async = new AsyncSubscriber(message -> {
+            await(release);
+            received.add(message);
+        }, 2, OverflowPolicy.DROP_NEWEST);
+
+        fillWhileBlocked(async);
+        release.countDown();
+        async.close();
+
+        // the first message is in the worker, then two are buffered
+        assertThat(received).containsExactly("m0", "m1", "m2");
+        assertThat(async.getDroppedCount()).isEqualTo(7);
+    }
+
+    @Test
+    void dropOldestKeepsLatestMessages() {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        AsyncSubscriber async = new AsyncSubscriber(message -> {
+            await(release);
+            received.add(message);
+        }, 2, OverflowPolicy.DROP_OLDEST);
+
+        fillWhileBlocked(async);
+        release.countDown();
+        async.close();
+
+        assertThat(received).containsExactly("m0", "m8", "m9");
+        assertThat(async.getDroppedCount()).isEqualTo(7);
+    }
+
+    @Test
+    void failPolicyThrowsWhenFull() {
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncSubscriber async = new AsyncSubscriber(message -> await(release), 2, OverflowPolicy.FAIL);
+
+        async.onNext("m0");
+        waitUntilEmpty(async);
+        async.onNext("m1");
+        async.onNext("m2");
+
+        assertThatThrownBy(() -> async.onNext("m3"))
+                .isInstanceOf(IllegalStateException.class);
+        release.countDown();
+        async.close();
+    }
+
+    @Test
+    void closedSubscriberRejectsMessages() {
+        AsyncSubscriber async = new AsyncSubscriber(message -> { }, 2, OverflowPolicy.BLOCK);
+        async.close();
+
+        assertThatThrownBy(() -> async.onNext("late"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void messagesRacingCloseAreDeliveredOrRejected() throws InterruptedException {
+        for (int round = 0; round < 200; round++) {
+            AtomicInteger delivered = new AtomicInteger();
+            AsyncSubscriber async = new AsyncSubscriber(message -> delivered.incrementAndGet(),
+                    64, OverflowPolicy.BLOCK);
+            Thread closer = new Thread(async::close);
+            closer.start();
+            int accepted = 0;
+            for (int i = 0; i < 20; i++) {
+                try {
+                    async.onNext("m" + i);
+                    accepted++;
+                } catch (IllegalStateException e) {
+                    break;
+                }
+            }
+            closer.join();
+
+            assertThat(delivered.get()).isEqualTo(accepted);
+        }
+    }
+
+    // First message occupies the worker, the rest pile up in the buffer
+    private static void fillWhileBlocked(AsyncSubscriber async) {
+        async.onNext("m0");
+        waitUntilEmpty(async);
+        for (int i = 1; i < 10; i++) {
+            async.onNext("m" + i);
+        }
+    }
+
+    private static void waitUntilEmpty(AsyncSubscriber async) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (async.getPendingCount() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
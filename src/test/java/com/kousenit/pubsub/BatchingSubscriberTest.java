@@ -0,0 +1,94 @@
+package com.kousenit.pubsub;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class BatchingSubscriberTest {
+    private final Publisher pub = new Publisher();
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final BatchSubscriber recorder = batches::add;
+
+    @Test
+    void groupsMessagesByMaxCount() {
+        Subscription subscription = pub.subscribeBatched(recorder, 3, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 7; i++) {
+            pub.send("m" + i);
+        }
+        subscription.unsubscribe();  // flushes the partial batch
+
+        assertThat(batches).containsExactly(
+                List.of("m0", "m1", "m2"),
+                List.of("m3", "m4", "m5"),
+                List.of("m6"));
+    }
+
+    @Test
+    void flushesPartialBatchAfterLinger() {
+        Subscription subscription = pub.subscribeBatched(recorder, 100, Duration.ofMillis(200));
+
+        pub.send("a");
+        pub.send("b");
+        waitForBatches(1);
+
+        assertThat(batches).containsExactly(List.of("a", "b"));
+        subscription.unsubscribe();
+    }
+
+    @Test
+    void producerWaitsOnceTooManyBatchesAreQueued() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Subscription subscription = pub.subscribeBatched(batch -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batches.add(batch);
+        }, 1, Duration.ofMinutes(1));
+        AtomicInteger sent = new AtomicInteger();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                pub.send("m" + i);
+                sent.incrementAndGet();
+            }
+        });
+        producer.start();
+
+        Thread.sleep(200);
+        assertThat(sent.get()).isLessThanOrEqualTo(BatchingSubscriber.MAX_QUEUED_BATCHES);
+
+        release.countDown();
+        producer.join(5_000);
+        subscription.unsubscribe();
+        assertThat(batches).hasSize(100);
+    }
+
+    @Test
+    void plainSubscribersStillGetSingleMessages() {
+        Subscriber plain = mock(Subscriber.class);
+        pub.subscribe(plain);
+        pub.subscribe(recorder);
+
+        pub.send("Hello");
+
+        verify(plain).onNext("Hello");
+        assertThat(batches).containsExactly(List.of("Hello"));
+    }
+
+    private void waitForBatches(int count) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (batches.size() < count && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.kousenit.pubsub;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class BridgeServerTest {
+    private final Publisher source = new Publisher();
+    private final Publisher target = new Publisher();
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final Logger serverLogger = Logger.getLogger(BridgeServer.class.getName());
+    private BridgeServer server;
+
+    // Dropped connections are logged; keep that off the shared console
+    // handler, which other tests capture through System.err
+    @BeforeEach
+    void setUp() {
+        serverLogger.setUseParentHandlers(false);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (server != null) {
+            server.close();
+        }
+        serverLogger.setUseParentHandlers(true);
+    }
+
+    @Test
+    void forwardsMessagesInOrderOverTcpLoopback() throws Exception {
+        target.subscribe(received::add);
+        server = new BridgeServer(target, LocalSockets.loopback(0));
+        Subscription remote = source.subscribeRemote(server.getLocalAddress());
+
+        List<String> sent = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            sent.add("msg-" + i);
+        }
+        sent.add("h\u00e9llo w\u00f6rld \u2713");
+        sent.forEach(source::send);
+        remote.unsubscribe();  // flushes what is queued
+
+        awaitReceived(sent.size());
+        assertThat(received).containsExactlyElementsOf(sent);
+        assertThat(remote.getStats().getDelivered()).isEqualTo(sent.size());
+    }
+
+    @Test
+    void largeMessagesSpanManyReads() throws Exception {
+        target.subscribe(received::add);
+        server = new BridgeServer(target, LocalSockets.loopback(0));
+        String large = "x".repeat(1024 * 1024);
+
+        try (RemoteSubscriber remote = new RemoteSubscriber(server.getLocalAddress())) {
+            remote.onNext("small");
+            remote.onNext(large);
+            remote.onNext("after");
+        }
+
+        awaitReceived(3);
+        assertThat(received).containsExactly("small", large, "after");
+    }
+
+    @Test
+    void badFrameDropsOnlyThatConnection() throws Exception {
+        target.subscribe(received::add);
+        server = new BridgeServer(target, LocalSockets.loopback(0));
+        SocketAddress address = server.getLocalAddress();
+
+        try (SocketChannel rogue = SocketChannel.open(address)) {
+            ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES).putInt(-5);
+            frame.flip();
+            rogue.write(frame);
+            ByteBuffer in = ByteBuffer.allocate(1);
+            assertThat(rogue.read(in)).isEqualTo(-1);  // closed by the server
+        }
+        try (RemoteSubscriber remote = new RemoteSubscriber(address)) {
+            remote.onNext("still works");
+        }
+
+        awaitReceived(1);
+        assertThat(received).containsExactly("still works");
+    }
+
+    @Test
+    void refusedMessageDropsOnlyThatConnection(@TempDir Path dir) throws Exception {
+        MessageLog log = new MessageLog(dir, 4096, Duration.ofDays(1), Long.MAX_VALUE);
+        Publisher persistent = new Publisher(log);
+        persistent.subscribe(received::add);
+        server = new BridgeServer(persistent, LocalSockets.loopback(0));
+        SocketAddress address = server.getLocalAddress();
+
+        try (SocketChannel sender = SocketChannel.open(address)) {
+            byte[] tooLarge = "x".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+            ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + tooLarge.length)
+                    .putInt(tooLarge.length).put(tooLarge);
+            frame.flip();
+            while (frame.hasRemaining()) {
+                sender.write(frame);
+            }
+            ByteBuffer in = ByteBuffer.allocate(1);
+            assertThat(sender.read(in)).isEqualTo(-1);  // closed by the server
+        }
+        try (RemoteSubscriber remote = new RemoteSubscriber(address)) {
+            remote.onNext("still works");
+        }
+
+        awaitReceived(1);
+        assertThat(received).containsExactly("still works");
+        server.close();
+        server = null;
+        log.close();
+    }
+
+    @Test
+    void forwardsOverUnixDomainSocket(@TempDir Path dir) throws Exception {
+        assumeTrue(LocalSockets.isUnixDomainSupported());
+        Path socketFile = dir.resolve("bridge.sock");
+        target.subscribe(received::add);
+        server = new BridgeServer(target, LocalSockets.unixDomain(socketFile));
+
+        try (RemoteSubscriber remote = new RemoteSubscriber(LocalSockets.unixDomain(socketFile))) {
+            remote.onNext("over unix");
+        }
+
+        awaitReceived(1);
+        assertThat(received).containsExactly("over unix");
+        server.close();
+        server = null;
+        assertThat(Files.exists(socketFile)).isFalse();
+    }
+
+    private void awaitReceived(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (received.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.kousenit.pubsub;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class CircuitBreakerTest {
+    private final Publisher pub = new Publisher();
+    private final Subscriber failing = mock(Subscriber.class);
+    private final Subscriber healthy = mock(Subscriber.class);
+    private final DeadLetterSink sink = mock(DeadLetterSink.class);
+
+    @Test
+    void countsFailuresAndSendsThemToDeadLetterSink() {
+        RuntimeException oops = new RuntimeException("Oops");
+        doThrow(oops).when(failing).onNext(anyString());
+        pub.setDeadLetterSink(sink);
+        Subscription bad = pub.subscribe(failing);
+        Subscription good = pub.subscribe(healthy);
+
+        pub.send("message 1");
+        pub.send("message 2");
+
+        verify(sink).accept(failing, "message 1", oops);
+        verify(sink).accept(failing, "message 2", oops);
+        assertThat(bad.getStats().getFailed()).isEqualTo(2);
+        assertThat(good.getStats().getDelivered()).isEqualTo(2);
+        assertThat(good.getStats().getFailed()).isZero();
+    }
+
+    @Test
+    void openCircuitSkipsFailingSubscriber() {
+        doThrow(RuntimeException.class).when(failing).onNext(anyString());
+        pub.setDeadLetterSink(sink);
+        pub.setCircuitBreaker(new CircuitBreakerSettings(0.5, null, 4, Duration.ofMinutes(1)));
+        Subscription bad = pub.subscribe(failing);
+        pub.subscribe(healthy);
+
+        for (int i = 0; i < 10; i++) {
+            pub.send("message " + i);
+        }
+
+        verify(failing, times(4)).onNext(anyString());
+        verify(healthy, times(10)).onNext(anyString());
+        verify(sink, times(6)).accept(eq(failing), anyString(), any(CircuitOpenException.class));
+        DeliveryStats stats = bad.getStats();
+        assertThat(stats.isCircuitOpen()).isTrue();
+        assertThat(stats.getFailed()).isEqualTo(4);
+        assertThat(stats.getSkipped()).isEqualTo(6);
+    }
+
+    @Test
+    void slowSubscriberTripsBreaker() {
+        Subscriber slow = message -> sleep(5);
+        pub.setCircuitBreaker(new CircuitBreakerSettings(1.0, Duration.ofMillis(1), 2, Duration.ofMinutes(1)));
+        Subscription subscription = pub.subscribe(slow);
+
+        for (int i = 0; i < 5; i++) {
+            pub.send("message " + i);
+        }
+
+        DeliveryStats stats = subscription.getStats();
+        assertThat(stats.isCircuitOpen()).isTrue();
+        assertThat(stats.getDelivered()).isEqualTo(2);
+        assertThat(stats.getSkipped()).isEqualTo(3);
+    }
+
+    @Test
+    void closesAgainAfterSuccessfulTrial() {
+        doThrow(RuntimeException.class)
+                .doThrow(RuntimeException.class)
+                .doNothing()
+                .when(failing).onNext(anyString());
+        pub.setCircuitBreaker(new CircuitBreakerSettings(1.0, null, 2, Duration.ofMillis(20)));
+        Subscription subscription = pub.subscribe(failing);
+
+        pub.send("fails 1");
+        pub.send("fails 2");
+        pub.send("skipped");
+        assertThat(subscription.getStats().isCircuitOpen()).isTrue();
+
+        sleep(30);
+        pub.send("trial");
+        pub.send("normal");
+
+        assertThat(subscription.getStats().isCircuitOpen()).isFalse();
+        verify(failing).onNext("trial");
+        verify(failing).onNext("normal");
+        verify(failing, never()).onNext("skipped");
+    }
+
+    @Test
+    void errorDuringTrialReopensInsteadOfStickingHalfOpen() {
+        doThrow(RuntimeException.class)
+                .doThrow(new AssertionError("boom"))
+                .doNothing()
+                .when(failing).onNext(anyString());
+        pub.setCircuitBreaker(new CircuitBreakerSettings(1.0, null, 1, Duration.ofMillis(20)));
+        Subscription subscription = pub.subscribe(failing);
+
+        pub.send("fails");
+        sleep(30);
+        assertThatThrownBy(() -> pub.send("trial")).isInstanceOf(AssertionError.class);
+        assertThat(subscription.getStats().isCircuitOpen()).isTrue();
+
+        sleep(30);
+        pub.send("second trial");
+
+        verify(failing).onNext("second trial");
+        assertThat(subscription.getStats().isCircuitOpen()).isFalse();
+    }
+
+    @Test
+    void asyncSubscriberFailuresGoThroughTheSamePolicy() {
+        RuntimeException oops = new RuntimeException("Oops");
+        doThrow(oops).when(failing).onNext(anyString());
+        pub.setDeadLetterSink(sink);
+        pub.setCircuitBreaker(new CircuitBreakerSettings(0.5, null, 2, Duration.ofMinutes(1)));
+        Subscription subscription = pub.subscribeAsync(failing, 16, OverflowPolicy.BLOCK);
+
+        for (int i = 0; i < 5; i++) {
+            pub.send("message " + i);
+        }
+        subscription.unsubscribe();  // drains the worker
+
+        verify(failing, times(2)).onNext(anyString());
+        verify(sink, times(2)).accept(eq(failing), anyString(), eq(oops));
+        verify(sink, times(3)).accept(eq(failing), anyString(), any(CircuitOpenException.class));
+        DeliveryStats stats = subscription.getStats();
+        assertThat(stats.getFailed()).isEqualTo(2);
+        assertThat(stats.getSkipped()).isEqualTo(3);
+        assertThat(stats.getDelivered()).isZero();
+    }
+
+    @Test
+    void rejectsMissingOrNegativeOpenDuration() {
+        assertThatThrownBy(() -> new CircuitBreakerSettings(0.5, null, 2, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CircuitBreakerSettings(0.5, null, 2, Duration.ofSeconds(-1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.kousenit.pubsub;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConflatingSubscriberTest {
+    private final Publisher pub = new Publisher();
+
+    @Test
+    void slowSubscriberOnlySeesLatestValuePerKey() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        ConflatingSubscriber conflating = new ConflatingSubscriber(message -> {
+            started.countDown();
+            await(release);
+            received.add(message);
+        }, ConflatingSubscriberTest::symbol);
+        pub.subscribe(conflating);
+
+        pub.send("AAPL:100");
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();  // worker busy with AAPL:100
+        pub.send("AAPL:101");
+        pub.send("MSFT:300");
+        pub.send("AAPL:102");
+        pub.send("MSFT:301");
+        assertThat(conflating.getPendingCount()).isEqualTo(2);
+
+        release.countDown();
+        conflating.close();
+
+        assertThat(received).containsExactly("AAPL:100", "AAPL:102", "MSFT:301");
+        assertThat(conflating.getConflatedCount()).isEqualTo(2);
+        assertThat(conflating.getDeliveredCount()).isEqualTo(3);
+    }
+
+    @Test
+    void fastSubscriberSeesEveryMessage() {
+        List<String> received = new CopyOnWriteArrayList<>();
+        Subscription subscription = pub.subscribeConflating(received::add, ConflatingSubscriberTest::symbol);
+
+        for (int i = 0; i < 5; i++) {
+            pub.send("IBM:" + i);
+            waitFor(received, i + 1);
+        }
+        subscription.unsubscribe();
+
+        assertThat(received).containsExactly("IBM:0", "IBM:1", "IBM:2", "IBM:3", "IBM:4");
+    }
+
+    @Test
+    void keyUpdatedDuringDeliveryIsNotDeliveredStale() {
+        Semaphore permits = new Semaphore(0);
+        AtomicInteger started = new AtomicInteger();
+        List<String> received = new CopyOnWriteArrayList<>();
+        ConflatingSubscriber conflating = new ConflatingSubscriber(message -> {
+            started.incrementAndGet();
+            permits.acquireUninterruptibly();
+            received.add(message);
+        }, ConflatingSubscriberTest::symbol);
+
+        conflating.onNext("AAPL:100");
+        waitFor(started, 1);
+        conflating.onNext("AAPL:101");
+        conflating.onNext("MSFT:300");
+        permits.release();
+        waitFor(started, 2);  // worker now holds AAPL:101
+        conflating.onNext("MSFT:301");
+        permits.release(10);
+        conflating.close();
+
+        assertThat(received).containsExactly("AAPL:100", "AAPL:101", "MSFT:301");
+    }
+
+    @Test
+    void countsOnlySuccessfulDeliveries() {
+        ConflatingSubscriber conflating = new ConflatingSubscriber(message -> {
+            if (message.startsWith("BAD")) {
+                throw new IllegalStateException("rejected");
+            }
+        }, ConflatingSubscriberTest::symbol);
+
+        conflating.onNext("BAD:1");
+        conflating.onNext("IBM:1");
+        conflating.close();
+
+        assertThat(conflating.getDeliveredCount()).isEqualTo(1);
+    }
+
+    private static String symbol(String tick) {
+        return tick.substring(0, tick.indexOf(':'));
+    }
+
+    private static void waitFor(List<String> received, int count) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < count && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void waitFor(AtomicInteger counter, int count) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (counter.get() < count && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.kousenit.pubsub;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class FlowPublisherTest {
+    private final Publisher pub = new Publisher();
+
+    @Test
+    void deliversOnlyWhatWasRequested() {
+        FlowPublisher flow = new FlowPublisher(pub, 16, OverflowPolicy.BLOCK);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        flow.subscribe(subscriber);
+
+        subscriber.subscription.request(2);
+        for (int i = 0; i < 5; i++) {
+            pub.send("message " + i);
+        }
+        assertThat(subscriber.items).containsExactly("message 0", "message 1");
+
+        subscriber.subscription.request(10);
+        assertThat(subscriber.items).hasSize(5).endsWith("message 4");
+    }
+
+    @Test
+    void closeCompletesAfterBufferedItems() {
+        FlowPublisher flow = new FlowPublisher(pub, 16, OverflowPolicy.BLOCK);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        flow.subscribe(subscriber);
+
+        pub.send("a");
+        pub.send("b");
+        flow.close();
+        assertThat(subscriber.completed).isFalse();
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertThat(subscriber.items).containsExactly("a", "b");
+        assertThat(subscriber.completed).isTrue();
+        assertThat(pub.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    void cancelInsideOnSubscribeLeavesNoRegistration() {
+        FlowPublisher flow = new FlowPublisher(pub);
+        RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.cancel();
+            }
+        };
+        flow.subscribe(subscriber);
+
+        assertThat(flow.getSubscriberCount()).isZero();
+        assertThat(pub.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    void blockedSendGivesUpOnSubscriberWithoutDemand() {
+        FlowPublisher flow = new FlowPublisher(pub, 2, OverflowPolicy.BLOCK);
+        RecordingSubscriber idle = new RecordingSubscriber();
+        flow.subscribe(idle);
+        List<String> others = new CopyOnWriteArrayList<>();
+        pub.subscribe(others::add);
+
+        for (int i = 0; i < 3; i++) {
+            pub.send("message " + i);  // the third waits for demand, then fails idle
+        }
+
+        assertThat(idle.error).isInstanceOf(IllegalStateException.class);
+        assertThat(others).hasSize(3);
+        assertThat(pub.getSubscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    void closeExceptionallySignalsError() {
+        FlowPublisher flow = new FlowPublisher(pub);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        flow.subscribe(subscriber);
+
+        RuntimeException boom = new RuntimeException("boom");
+        flow.closeExceptionally(boom);
+
+        assertThat(subscriber.error).isSameAs(boom);
+    }
+
+    @Test
+    void cancelStopsDeliveryAndUnsubscribes() {
+        FlowPublisher flow = new FlowPublisher(pub);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        flow.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        pub.send("before");
+        subscriber.subscription.cancel();
+        pub.send("after");
+
+        assertThat(subscriber.items).containsExactly("before");
+        assertThat(flow.getSubscriberCount()).isZero();
+        assertThat(pub.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    void failPolicySignalsErrorOnOverflow() {
+        FlowPublisher flow = new FlowPublisher(pub, 2, OverflowPolicy.FAIL);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        flow.subscribe(subscriber);
+
+        pub.send("1");
+        pub.send("2");
+        pub.send("3");
+
+        assertThat(subscriber.error).isInstanceOf(IllegalStateException.class);
+        assertThat(subscriber.items).isEmpty();
+    }
+
+    @Test
+    void dropOldestKeepsNewestItems() {
+        FlowPublisher flow = new FlowPublisher(pub, 2, OverflowPolicy.DROP_OLDEST);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        flow.subscribe(subscriber);
+
+        for (int i = 0; i < 5; i++) {
+            pub.send("message " + i);
+        }
+        subscriber.subscription.request(5);
+
+        assertThat(subscriber.items).containsExactly("message 3", "message 4");
+    }
+
+    @Test
+    void nonPositiveRequestIsAnError() {
+        FlowPublisher flow = new FlowPublisher(pub);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        flow.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void existingSubscribersWorkThroughUnboundedBridge() {
+        Subscriber legacy = mock(Subscriber.class);
+        new FlowPublisher(pub).subscribe(new UnboundedSubscriber(legacy));
+
+        pub.send("Hello");
+        pub.send("World");
+
+        verify(legacy).onNext("Hello");
+        verify(legacy).onNext("World");
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<String> {
+        private final List<String> items = new CopyOnWriteArrayList<>();
+        private Flow.Subscription subscription;
+        private volatile Throwable error;
+        private volatile boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(String item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
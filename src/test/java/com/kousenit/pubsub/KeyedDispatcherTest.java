@@ -0,0 +1,117 @@
+package com.kousenit.pubsub;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class KeyedDispatcherTest {
+    private final Publisher pub = new Publisher();
+
+    @Test
+    void preservesOrderPerKey() {
+        Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+        pub.subscribe(message -> {
+            String[] parts = message.split(":");
+            received.computeIfAbsent(parts[0], key -> new CopyOnWriteArrayList<>())
+                    .add(Integer.parseInt(parts[1]));
+        });
+
+        try (KeyedDispatcher dispatcher = new KeyedDispatcher(8, 4)) {
+            for (int i = 0; i < 1_000; i++) {
+                String key = "key" + (i % 10);
+                pub.sendOrdered(key, key + ":" + i, dispatcher);
+            }
+        }
+
+        assertThat(received).hasSize(10);
+        received.values().forEach(values -> {
+            assertThat(values).hasSize(100);
+            assertThat(values).isSorted();
+        });
+    }
+
+    @Test
+    void differentKeysRunInParallel() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        pub.subscribe(message -> {
+            threads.add(Thread.currentThread().getName());
+            sleep();
+        });
+
+        try (KeyedDispatcher dispatcher = new KeyedDispatcher(16, 4)) {
+            for (int i = 0; i < 64; i++) {
+                pub.sendOrdered("key" + i, "message", dispatcher);
+            }
+        }
+
+        assertThat(threads.size()).isGreaterThan(1);
+    }
+
+    @Test
+    void everySubscriberGetsEveryMessage() {
+        List<List<String>> inboxes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            List<String> inbox = new CopyOnWriteArrayList<>();
+            inboxes.add(inbox);
+            pub.subscribe(inbox::add);
+        }
+
+        try (KeyedDispatcher dispatcher = new KeyedDispatcher(4, 2)) {
+            pub.sendOrdered("order-42", "created", dispatcher);
+            pub.sendOrdered("order-42", "paid", dispatcher);
+            pub.sendOrdered("order-42", "shipped", dispatcher);
+        }
+
+        inboxes.forEach(inbox ->
+                assertThat(inbox).containsExactly("created", "paid", "shipped"));
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void errorInSubscriberDoesNotLeaveLaneBusy() {
+        List<String> received = new CopyOnWriteArrayList<>();
+        pub.subscribe(message -> {
+            if (message.equals("boom")) {
+                throw new AssertionError("boom");
+            }
+            received.add(message);
+        });
+        KeyedDispatcher dispatcher = new KeyedDispatcher(1, 1);
+
+        pub.sendOrdered("key", "boom", dispatcher);
+        pub.sendOrdered("key", "after", dispatcher);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), dispatcher::close);
+        assertThat(received).containsExactly("after");
+    }
+
+    @Test
+    void rejectsDispatchAfterClose() {
+        List<String> received = new CopyOnWriteArrayList<>();
+        pub.subscribe(received::add);
+        KeyedDispatcher dispatcher = new KeyedDispatcher(2, 2);
+        dispatcher.close();
+
+        assertThatThrownBy(() -> pub.sendOrdered("key", "late", dispatcher))
+                .isInstanceOf(IllegalStateException.class);
+        dispatcher.close();  // returns: no lane was left busy
+        assertThat(received).isEmpty();
+    }
+}
@@ -0,0 +1,187 @@
+package com.kousenit.pubsub;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackAppendedMessagesFromAnyOffset() throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            long first = log.append("one");
+            long second = log.append("two");
+            log.append("three");
+
+            assertThat(first).isZero();
+            assertThat(readAll(log, first)).containsExactly("one", "two", "three");
+            assertThat(readAll(log, second)).containsExactly("two", "three");
+            assertThat(readAll(log, log.getEndOffset())).isEmpty();
+        }
+    }
+
+    @Test
+    void rollsOverToNewSegments() throws IOException {
+        try (MessageLog log = new MessageLog(directory, 64, Duration.ofDays(1), Long.MAX_VALUE)) {
+            for (int i = 0; i < 20; i++) {
+                log.append("message " + i);
+            }
+
+            assertThat(log.getSegmentCount()).isGreaterThan(1);
+            assertThat(readAll(log, 0)).hasSize(20).endsWith("message 19");
+        }
+    }
+
+    @Test
+    void recoversAfterReopening() throws IOException {
+        long end;
+        try (MessageLog log = new MessageLog(directory, 64, Duration.ofDays(1), Long.MAX_VALUE)) {
+            for (int i = 0; i < 10; i++) {
+                log.append("message " + i);
+            }
+            end = log.getEndOffset();
+        }
+
+        try (MessageLog log = new MessageLog(directory, 64, Duration.ofDays(1), Long.MAX_VALUE)) {
+            assertThat(log.getEndOffset()).isEqualTo(end);
+            log.append("after restart");
+            assertThat(readAll(log, 0)).hasSize(11).endsWith("after restart");
+        }
+    }
+
+    @Test
+    void sizeRetentionDeletesOldestSegments() throws IOException {
+        try (MessageLog log = new MessageLog(directory, 64, Duration.ofDays(1), 128)) {
+            for (int i = 0; i < 50; i++) {
+                log.append("message " + i);
+            }
+
+            assertThat(log.getStartOffset()).isPositive();
+            assertThat(segmentFiles()).isEqualTo(log.getSegmentCount()).isLessThanOrEqualTo(4);
+            // reading from a deleted offset continues at the oldest record kept
+            List<String> kept = readAll(log, 0);
+            assertThat(kept).isNotEmpty().endsWith("message 49");
+        }
+    }
+
+    @Test
+    void timeRetentionDeletesExpiredSegments() throws IOException, InterruptedException {
+        try (MessageLog log = new MessageLog(directory, 64, Duration.ofMillis(10), Long.MAX_VALUE)) {
+            for (int i = 0; i < 10; i++) {
+                log.append("message " + i);
+            }
+            Thread.sleep(20);
+            log.applyRetention();
+
+            assertThat(log.getSegmentCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void durableSubscriberReplaysHistoryThenFollowsLiveMessages() throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            Publisher pub = new Publisher(log);
+            pub.send("before 1");
+            pub.send("before 2");
+
+            List<String> received = new CopyOnWriteArrayList<>();
+            LogCursor cursor = pub.subscribeDurable(received::add, log.getStartOffset());
+            pub.send("after");
+            waitFor(received, 3);
+
+            assertThat(received).containsExactly("before 1", "before 2", "after");
+            assertThat(cursor.getOffset()).isEqualTo(log.getEndOffset());
+            assertThat(cursor.getStats().getDelivered()).isEqualTo(3);
+            cursor.unsubscribe();
+            assertThat(cursor.isActive()).isFalse();
+        }
+    }
+
+    @Test
+    void resumesFromSavedOffset() throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            Publisher pub = new Publisher(log);
+            List<String> first = new CopyOnWriteArrayList<>();
+            LogCursor cursor = pub.subscribeDurable(first::add, 0);
+            pub.send("one");
+            pub.send("two");
+            waitFor(first, 2);
+            long saved = cursor.getOffset();
+            cursor.unsubscribe();
+
+            pub.send("three");  // sent while the subscriber was down
+
+            List<String> second = new CopyOnWriteArrayList<>();
+            LogCursor resumed = pub.subscribeDurable(second::add, saved);
+            waitFor(second, 1);
+            resumed.seek(0);
+            waitFor(second, 4);
+            resumed.unsubscribe();
+
+            assertThat(second).containsExactly("three", "one", "two", "three");
+        }
+    }
+
+    @Test
+    void seekOutsideTheLogIsRejectedAndMisalignedSeekStopsTheCursor() throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            Publisher pub = new Publisher(log);
+            List<String> received = new CopyOnWriteArrayList<>();
+            LogCursor cursor = pub.subscribeDurable(received::add, 0);
+            pub.send("one");
+            waitFor(received, 1);
+
+            assertThatThrownBy(() -> cursor.seek(log.getEndOffset() + 1))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            cursor.seek(1);  // inside the first record
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (cursor.getFailure() == null && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+
+            assertThat(cursor.getFailure())
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("offset 1");
+            assertThat(cursor.isActive()).isFalse();
+            assertThat(received).containsExactly("one");
+            cursor.unsubscribe();
+        }
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static List<String> readAll(MessageLog log, long offset) {
+        List<String> messages = new ArrayList<>();
+        log.read(offset, (recordOffset, timestamp, payload) ->
+                messages.add(StandardCharsets.UTF_8.decode(payload).toString()));
+        return messages;
+    }
+
+    private static void waitFor(List<String> received, int count) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < count && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.kousenit.pubsub;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.*;
+
+class ParallelDispatcherTest {
+    private final Publisher pub = new Publisher();
+
+    @Test
+    void deliversToEverySubscriberBeforeReturning() {
+        Subscriber[] subscribers = new Subscriber[10];
+        for (int i = 0; i < subscribers.length; i++) {
+            subscribers[i] = mock(Subscriber.class);
+            pub.subscribe(subscribers[i]);
+        }
+
+        try (ParallelDispatcher dispatcher = new ParallelDispatcher(4, 2, true)) {
+            pub.sendParallel("Hello", dispatcher);
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            verify(subscriber).onNext("Hello");
+        }
+    }
+
+    @Test
+    void fallsBackToSerialBelowThreshold() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 3; i++) {
+            pub.subscribe(message -> threads.add(Thread.currentThread().getName()));
+        }
+
+        try (ParallelDispatcher dispatcher = new ParallelDispatcher(4, 8, true)) {
+            pub.sendParallel("Hello", dispatcher);
+        }
+
+        assertThat(threads).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    void usesDedicatedThreadsAboveThreshold() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 8; i++) {
+            pub.subscribe(message -> threads.add(Thread.currentThread().getName()));
+        }
+
+        try (ParallelDispatcher dispatcher = ParallelDispatcher.withVirtualThreads(4, 2, true)) {
+            pub.sendParallel("Hello", dispatcher);
+        }
+
+        assertThat(threads).hasSize(4)
+                .contains(Thread.currentThread().getName())
+                .noneMatch(name -> name.startsWith("ForkJoinPool.commonPool"));
+    }
+
+    @Test
+    void misbehavingSubscriberDoesNotStopOthers() {
+        Subscriber bad = mock(Subscriber.class);
+        Subscriber good = mock(Subscriber.class);
+        doThrow(RuntimeException.class).when(bad).onNext(anyString());
+        pub.subscribe(bad);
+        pub.subscribe(good);
+
+        try (ParallelDispatcher dispatcher = new ParallelDispatcher(2, 0, true)) {
+            pub.sendParallel("Hello", dispatcher);
+        }
+
+        verify(good).onNext("Hello");
+    }
+
+    @Test
+    void errorInWorkerChunkDoesNotLeaveSendWaiting() {
+        Subscriber good = mock(Subscriber.class);
+        Subscriber bad = mock(Subscriber.class);
+        doThrow(AssertionError.class).when(bad).onNext(anyString());
+        pub.subscribe(good);
+        pub.subscribe(bad);  // second chunk, delivered on a worker
+
+        try (ParallelDispatcher dispatcher = new ParallelDispatcher(2, 0, true)) {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> pub.sendParallel("Hello", dispatcher));
+        }
+
+        verify(good).onNext("Hello");
+    }
+}
@@ -0,0 +1,111 @@
+package com.kousenit.pubsub;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.Mockito.*;
+
+class PayloadTest {
+    private final Publisher pub = new Publisher();
+
+    @Test
+    void binarySubscribersShareOneBufferWithoutCopying() {
+        ByteBuffer source = ByteBuffer.allocateDirect(16);
+        source.put("abc".getBytes(StandardCharsets.UTF_8)).flip();
+        List<ByteBuffer> views = new ArrayList<>();
+        pub.subscribe((PayloadSubscriber) payload -> views.add(payload.asByteBuffer()));
+        pub.subscribe((PayloadSubscriber) payload -> views.add(payload.asByteBuffer()));
+
+        pub.send(Payload.wrap(source));
+        source.put(0, (byte) 'x');  // visible through every view
+
+        assertThat(views).hasSize(2).allSatisfy(view -> {
+            assertThat(view.isReadOnly()).isTrue();
+            assertThat(view.isDirect()).isTrue();
+            assertThat(view.get(0)).isEqualTo((byte) 'x');
+            assertThat(view.remaining()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    void plainSubscribersReceiveDecodedText() {
+        Subscriber plain = mock(Subscriber.class);
+        pub.subscribe(plain);
+
+        pub.send(Payload.wrap(ByteBuffer.wrap("Hello".getBytes(StandardCharsets.UTF_8))));
+
+        verify(plain).onNext("Hello");
+    }
+
+    @Test
+    void pooledBufferReturnsAfterSend() {
+        BufferPool pool = new BufferPool(64, true, 4);
+        pub.subscribe((PayloadSubscriber) payload -> assertThat(payload.asString()).isEqualTo("pooled"));
+
+        ByteBuffer buffer = pool.acquire();
+        buffer.put("pooled".getBytes(StandardCharsets.UTF_8)).flip();
+        pub.send(Payload.pooled(buffer, pool::release));
+
+        assertThat(pool.getPooledCount()).isEqualTo(1);
+        assertThat(pool.acquire()).isSameAs(buffer);
+    }
+
+    @Test
+    void retainedPayloadIsReleasedByTheLastHolder() {
+        BufferPool pool = new BufferPool(64, false, 4);
+        List<Payload> kept = new ArrayList<>();
+        pub.subscribe((PayloadSubscriber) payload -> kept.add(payload.retain()));
+
+        ByteBuffer buffer = pool.acquire();
+        buffer.put((byte) 1).flip();
+        pub.send(Payload.pooled(buffer, pool::release));
+        assertThat(pool.getPooledCount()).isZero();
+
+        Payload payload = kept.get(0);
+        assertThat(payload.asByteBuffer().get()).isEqualTo((byte) 1);
+        assertThat(payload.release()).isTrue();
+        assertThat(pool.getPooledCount()).isEqualTo(1);
+        assertThatIllegalStateException().isThrownBy(payload::asByteBuffer);
+    }
+
+    @Test
+    void textPayloadEncodesOnlyOnce() {
+        Payload payload = Payload.of("text");
+
+        assertThat(payload.asByteBuffer().remaining()).isEqualTo(4);
+        assertThat(payload.asString()).isEqualTo("text");
+        assertThat(payload.asByteBuffer()).isEqualTo(payload.asByteBuffer());
+    }
+
+    @Test
+    void durableSubscriberReadsMappedBytes(@TempDir Path directory) throws IOException {
+        try (MessageLog log = new MessageLog(directory)) {
+            Publisher durable = new Publisher(log);
+            durable.send(Payload.wrap(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+
+            List<ByteBuffer> received = new CopyOnWriteArrayList<>();
+            LogCursor cursor = durable.subscribeDurable(
+                    (PayloadSubscriber) payload -> received.add(payload.asByteBuffer()), 0);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (received.isEmpty() && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            cursor.unsubscribe();
+
+            assertThat(received).hasSize(1);
+            assertThat(received.get(0).isDirect()).isTrue();
+            assertThat(received.get(0)).isEqualTo(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.kousenit.pubsub;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class PriorityLaneSubscriberTest {
+    private final Publisher pub = new Publisher();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> received = new CopyOnWriteArrayList<>();
+
+    // Blocks on the first message, so the rest queue up behind it
+    private final Subscriber slow = message -> {
+        started.countDown();
+        await(release);
+        received.add(message);
+    };
+
+    @Test
+    void highPriorityOvertakesQueuedBulkMessages() throws InterruptedException {
+        PriorityLaneSubscriber lanes = new PriorityLaneSubscriber(slow, 16, OverflowPolicy.BLOCK);
+        List<String> plain = new CopyOnWriteArrayList<>();
+        pub.subscribe(lanes);
+        pub.subscribe(plain::add);
+
+        pub.send("bulk-0", Priority.LOW);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        pub.send("bulk-1", Priority.LOW);
+        pub.send("bulk-2", Priority.LOW);
+        pub.send("data", Priority.NORMAL);
+        pub.send("invalidate", Priority.HIGH);
+        assertThat(lanes.getPendingCount(Priority.LOW)).isEqualTo(2);
+
+        release.countDown();
+        lanes.close();
+
+        assertThat(received).containsExactly("bulk-0", "invalidate", "data", "bulk-1", "bulk-2");
+        assertThat(plain).containsExactly("bulk-0", "bulk-1", "bulk-2", "data", "invalidate");
+    }
+
+    @Test
+    void lowPriorityIsServedAfterStarvationLimit() throws InterruptedException {
+        PriorityLaneSubscriber lanes = new PriorityLaneSubscriber(slow, 16, OverflowPolicy.BLOCK, 2);
+        pub.subscribe(lanes);
+
+        pub.send("first", Priority.HIGH);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        pub.send("low", Priority.LOW);
+        for (int i = 1; i <= 4; i++) {
+            pub.send("high-" + i, Priority.HIGH);
+        }
+
+        release.countDown();
+        lanes.close();
+
+        assertThat(received).containsExactly("first", "high-1", "high-2", "low", "high-3", "high-4");
+    }
+
+    @Test
+    void failPolicyRejectsWhenLaneIsFull() throws InterruptedException {
+        PriorityLaneSubscriber lanes = new PriorityLaneSubscriber(slow, 1, OverflowPolicy.FAIL);
+
+        lanes.onNext("first", Priority.LOW);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        lanes.onNext("queued", Priority.LOW);
+        lanes.onNext("other lane", Priority.HIGH);
+        assertThatIllegalStateException().isThrownBy(() -> lanes.onNext("overflow", Priority.LOW));
+
+        release.countDown();
+        lanes.close();
+        assertThat(received).containsExactly("first", "other lane", "queued");
+    }
+
+    @Test
+    void publisherSubscribePrioritizedUnsubscribeDrains() {
+        Subscription subscription = pub.subscribePrioritized(received::add, 8, OverflowPolicy.BLOCK);
+        pub.send("a", Priority.LOW);
+        pub.send("b");
+
+        subscription.unsubscribe();
+
+        assertThat(received).containsExactlyInAnyOrder("a", "b");
+        assertThat(pub.getSubscriberCount()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
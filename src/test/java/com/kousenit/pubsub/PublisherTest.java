@@ -6,6 +6,14 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 class PublisherTest {
@@ -83,4 +91,73 @@ class PublisherTest {
         verify(sub1, times(2)).onNext(matches("Message \\d"));
     }
 
+    @Test
+    void unsubscribedSubscriberStopsReceivingMessages() {
+        Subscriber sub3 = mock(Subscriber.class);
+        Subscription subscription = pub.subscribe(sub3);
+
+        pub.send("first");
+        subscription.unsubscribe();
+        pub.send("second");
+
+        assertThat(subscription.isActive()).isFalse();
+        assertThat(pub.getSubscriberCount()).isEqualTo(2);
+        verify(sub3).onNext("first");
+        verify(sub3, never()).onNext("second");
+        verify(sub1).onNext("second");
+    }
+
+    @Test
+    void staleSnapshotSkipsUnsubscribedRegistration() {
+        Subscriber sub3 = mock(Subscriber.class);
+        Registration registration = (Registration) pub.subscribe(sub3);
+
+        registration.unsubscribe();
+        registration.deliver("late");  // as a send still holding the old snapshot would
+
+        verifyNoInteractions(sub3);
+    }
+
+    @Test
+    void sameSubscriberCanBeRegisteredTwice() {
+        Subscription extra = pub.subscribe(sub1);
+
+        pub.send("Hello");
+        extra.unsubscribe();
+        pub.send("Goodbye");
+
+        verify(sub1, times(2)).onNext("Hello");
+        verify(sub1).onNext("Goodbye");
+    }
+
+    @Test
+    void subscribeAndUnsubscribeWhileSending() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        pub.subscribe(message -> { }).unsubscribe();
+                    }
+                }));
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        pub.sendParallel("message " + i);
+                        pub.send("message " + i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(pub.getSubscriberCount()).isEqualTo(2);
+        verify(sub1, times(4_000)).onNext(anyString());
+        verify(sub2, times(4_000)).onNext(anyString());
+    }
+
 }
@@ -0,0 +1,119 @@
+package com.kousenit.pubsub;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class TimingWheelTest {
+    // small wheel, so longer delays go through the overflow levels
+    private final TimingWheel wheel = new TimingWheel(Duration.ofMillis(1), 4, Runnable::run);
+
+    @AfterEach
+    void tearDown() {
+        wheel.close();
+    }
+
+    @Test
+    void runsTasksAfterTheirDelayInDeadlineOrder() throws InterruptedException {
+        List<Integer> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        long start = System.nanoTime();
+        wheel.schedule(() -> { fired.add(150); done.countDown(); }, 150, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> { fired.add(3); done.countDown(); }, 3, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> { fired.add(40); done.countDown(); }, 40, TimeUnit.MILLISECONDS);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(150));
+        assertThat(fired).containsExactly(3, 40, 150);
+        assertThat(wheel.getPendingCount()).isZero();
+    }
+
+    @Test
+    void cancelledTasksNeverRun() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch later = new CountDownLatch(1);
+        Timeout timeout = wheel.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        wheel.schedule(later::countDown, 60, TimeUnit.MILLISECONDS);
+
+        assertThat(timeout.cancel()).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+        assertThat(later.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(runs).hasValue(0);
+        assertThat(timeout.isCancelled()).isTrue();
+        assertThat(timeout.isExpired()).isFalse();
+    }
+
+    @Test
+    void manyTimeoutsAcrossLevelsAllFire() throws InterruptedException {
+        int count = 10_000;
+        CountDownLatch done = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            wheel.schedule(done::countDown, i % 250, TimeUnit.MILLISECONDS);
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(wheel.getPendingCount()).isZero();
+    }
+
+    @Test
+    void keepsTimeAfterIdling() throws InterruptedException {
+        CountDownLatch first = new CountDownLatch(1);
+        wheel.schedule(first::countDown, 5, TimeUnit.MILLISECONDS);
+        assertThat(first.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);  // nothing pending: the ticker is parked
+
+        CountDownLatch second = new CountDownLatch(1);
+        long start = System.nanoTime();
+        wheel.schedule(second::countDown, 20, TimeUnit.MILLISECONDS);
+
+        assertThat(second.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    void wheelSizeMustBePowerOfTwo() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new TimingWheel(Duration.ofMillis(1), 100, Runnable::run));
+    }
+
+    @Test
+    void publisherSendsScheduledMessages() throws InterruptedException {
+        try (Publisher pub = new Publisher()) {
+            List<String> received = new CopyOnWriteArrayList<>();
+            CountDownLatch done = new CountDownLatch(2);
+            pub.subscribe(message -> { received.add(message); done.countDown(); });
+
+            Timeout cancelled = pub.sendAfter(Duration.ofMillis(10), "never");
+            pub.sendAt(Instant.now().plusMillis(50), "second");
+            pub.sendAfter(Duration.ofMillis(20), "first");
+            cancelled.cancel();
+
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(received).containsExactly("first", "second");
+        }
+    }
+
+    @Test
+    void closedPublisherDropsScheduledMessages() throws InterruptedException {
+        Publisher pub = new Publisher();
+        List<String> received = new CopyOnWriteArrayList<>();
+        pub.subscribe(received::add);
+        pub.sendAfter(Duration.ofMillis(20), "too late");
+
+        pub.close();
+        Thread.sleep(50);
+
+        assertThat(received).isEmpty();
+        assertThatIllegalStateException().isThrownBy(() -> pub.sendAfter(Duration.ZERO, "rejected"));
+    }
+}
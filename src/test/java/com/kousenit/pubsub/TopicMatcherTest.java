@@ -0,0 +1,97 @@
+package com.kousenit.pubsub;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.*;
+
+class TopicMatcherTest {
+    private final Publisher pub = new Publisher();
+    private final Subscriber exact = mock(Subscriber.class);
+    private final Subscriber oneLevel = mock(Subscriber.class);
+    private final Subscriber anyLevel = mock(Subscriber.class);
+    private final Subscriber broadcast = mock(Subscriber.class);
+
+    @Test
+    void routesByPattern() {
+        pub.subscribe("orders.created", exact);
+        pub.subscribe("orders.*", oneLevel);
+        pub.subscribe("orders.#", anyLevel);
+        pub.subscribe(broadcast);
+
+        pub.publish("orders.created", "o1");
+        pub.publish("orders.eu.created", "o2");
+        pub.publish("orders", "o3");
+        pub.publish("payments.created", "p1");
+
+        verify(exact).onNext("o1");
+        verify(oneLevel).onNext("o1");
+        verify(anyLevel).onNext("o1");
+        verify(anyLevel).onNext("o2");
+        verify(anyLevel).onNext("o3");
+        verifyNoMoreInteractions(exact, oneLevel, anyLevel);
+        verifyNoInteractions(broadcast);
+    }
+
+    @Test
+    void wildcardsInTheMiddle() {
+        pub.subscribe("*.eu.#", oneLevel);
+        pub.subscribe("#.created", anyLevel);
+
+        pub.publish("orders.eu.created", "m1");
+        pub.publish("orders.us.created", "m2");
+        pub.publish("orders.eu", "m3");
+
+        verify(oneLevel).onNext("m1");
+        verify(oneLevel).onNext("m3");
+        verify(anyLevel).onNext("m1");
+        verify(anyLevel).onNext("m2");
+        verifyNoMoreInteractions(oneLevel, anyLevel);
+    }
+
+    @Test
+    void deliversOnceWhenPatternMatchesSeveralWays() {
+        pub.subscribe("#.a.#", anyLevel);
+
+        pub.publish("a.a.a", "Hello");
+
+        verify(anyLevel, times(1)).onNext("Hello");
+    }
+
+    @Test
+    void unsubscribeStopsTopicDelivery() {
+        Subscription subscription = pub.subscribe("orders.*", oneLevel);
+        pub.subscribe("orders.*", exact);
+
+        subscription.unsubscribe();
+        pub.publish("orders.created", "Hello");
+
+        verify(exact).onNext("Hello");
+        verifyNoInteractions(oneLevel);
+    }
+
+    @Test
+    void resubscribeAfterPruning() {
+        pub.subscribe("a.b.c", exact).unsubscribe();
+        pub.subscribe("a.b.c", oneLevel);
+
+        pub.publish("a.b.c", "Hello");
+
+        verify(oneLevel).onNext("Hello");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "orders..created", "orders.cre*", "orders#", ".orders"})
+    void rejectsMalformedPatterns(String pattern) {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> pub.subscribe(pattern, exact));
+    }
+
+    @Test
+    void rejectsWildcardsWhenPublishing() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> pub.publish("orders.*", "Hello"));
+    }
+}
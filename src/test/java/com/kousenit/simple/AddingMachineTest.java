@@ -4,9 +4,12 @@ import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Stream;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 import static org.mockito.Mockito.*;
@@ -141,4 +144,55 @@ public class AddingMachineTest {
 
         // assertFalse(spyList.isEmpty()); // Uh oh. Is it empty or not?
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getTotalsFromPrimitiveInts() {
+        AddingMachine machine = AddingMachine.of(1, 2, 3);
+
+        assertEquals(1 + 2 + 3, machine.getTotalUsingLoop());
+        assertEquals(1 + 2 + 3, machine.getTotalUsingIterable());
+        assertEquals(1 + 2 + 3, machine.getTotalUsingStream());
+        assertEquals(1 + 2 + 3, machine.getTotalExact());
+    }
+
+    @Test
+    public void totalsDoNotOverflow() {
+        long expected = 2L * Integer.MAX_VALUE;
+        for (AddingMachine machine : List.of(
+                new AddingMachine(List.of(Integer.MAX_VALUE, Integer.MAX_VALUE)),
+                AddingMachine.of(Integer.MAX_VALUE, Integer.MAX_VALUE))) {
+            assertEquals(expected, machine.getTotalUsingLoop());
+            assertEquals(expected, machine.getTotalUsingIterable());
+            assertEquals(expected, machine.getTotalUsingStream());
+            assertThrows(ArithmeticException.class, machine::getTotalExact);
+        }
+    }
+
+    @Test
+    public void intListIsAGrowableList() {
+        IntList list = new IntList(1);
+        for (int i = 1; i <= 5; i++) {
+            list.addInt(i);
+        }
+        list.add(0, 10);
+        list.remove(1);
+        list.set(4, 50);
+
+        assertEquals(List.of(10, 2, 3, 4, 50), list);
+        assertArrayEquals(new int[]{10, 2, 3, 4, 50}, list.toIntArray());
+        assertEquals(69, new AddingMachine(list).getTotalUsingLoop());
+    }
+
+    @Test
+    public void parallelAndUnrolledTotalsMatchTheLoop() {
+        // odd size, so the unrolled tail and uneven fork/join splits are exercised
+        int[] values = new Random(42).ints(1_000_003).toArray();
+        AddingMachine machine = AddingMachine.of(values);
+        long expected = machine.getTotalUsingLoop();
+
+        assertEquals(expected, machine.getTotalParallel());
+        assertEquals(expected, machine.getTotalUnrolled());
+        assertEquals(1 + 2 + 3, new AddingMachine(List.of(1, 2, 3)).getTotalParallel());
+        assertEquals(1 + 2 + 3, new AddingMachine(List.of(1, 2, 3)).getTotalUnrolled());
+    }
+}
@@ -0,0 +1,107 @@
+package com.kousenit.simple;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class AsyncLogWriterTest {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final PrintStream originalErr = System.err;
+    private Logger logger;
+
+    // A private logger with no handlers: nothing here touches the shared
+    // LogManager, whose console handler the other logging tests rely on
+    @BeforeEach
+    void setUp() {
+        logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+    }
+
+    @AfterEach
+    void restoreStandardError() {
+        System.setErr(originalErr);
+    }
+
+    @Test
+    void doStuffWritesConsoleAndLogAsynchronously() {
+        Logger spy = spy(logger);
+        try (AsyncLogWriter writer = new AsyncLogWriter(new PrintStream(out, true), 64)) {
+            LoggingDemo demo = new LoggingDemo(spy, writer);
+
+            demo.doStuff("Hello, w\u00f6rld!");
+            writer.flush();
+
+            assertThat(out.toString(StandardCharsets.UTF_8))
+                    .isEqualTo("Doing useful stuff: Hello, w\u00f6rld!" + System.lineSeparator());
+            ArgumentCaptor<LogRecord> record = ArgumentCaptor.forClass(LogRecord.class);
+            verify(spy).log(record.capture());
+            assertThat(record.getValue().getLevel()).isEqualTo(Level.INFO);
+            assertThat(record.getValue().getMessage()).isEqualTo("Hello, w\u00f6rld!");
+            // the caller's source and thread, not the writer's
+            assertThat(record.getValue().getSourceClassName()).isEqualTo(LoggingDemo.class.getName());
+            assertThat(record.getValue().getSourceMethodName()).isEqualTo("doStuff");
+            assertThat(record.getValue().getLongThreadID()).isEqualTo(Thread.currentThread().getId());
+        }
+    }
+
+    @Test
+    void disabledLevelIsSkippedBeforeQueueing() {
+        logger.setLevel(Level.WARNING);
+        Logger spy = spy(logger);
+        try (AsyncLogWriter writer = new AsyncLogWriter(new PrintStream(out, true), 64)) {
+            new LoggingDemo(spy, writer).doStuff("quiet");
+            writer.flush();
+
+            verify(spy, never()).log(any(LogRecord.class));
+            assertThat(out.toString(StandardCharsets.UTF_8)).contains("quiet");
+        }
+    }
+
+    @Test
+    void concurrentWritersLoseNothingThroughSmallRing() throws InterruptedException {
+        AsyncLogWriter writer = new AsyncLogWriter(new PrintStream(out, true), 8);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    writer.println("line ", thread + "-" + i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        writer.close();  // drains before stopping
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+        assertThat(lines).hasSize(4_000).contains("line 3-999", "line 0-0");
+    }
+
+    @Test
+    void writesAfterCloseAreRejected() {
+        AsyncLogWriter writer = new AsyncLogWriter(new PrintStream(out, true), 8);
+        writer.println("line ", "before");
+        writer.close();
+
+        assertThatIllegalStateException().isThrownBy(() -> writer.println("line ", "after"));
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("line before" + System.lineSeparator());
+    }
+}
@@ -0,0 +1,160 @@
+package com.kousenit.simple;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingHelloServiceTest {
+
+    @Mock
+    private TranslateService translateService;
+
+    @Test
+    void repeatedGreetingsAreTranslatedOnce() {
+        when(translateService.translate("Hello, Dolly!", "en"))
+                .thenReturn("en translation: Hello, Dolly!");
+        CachingHelloService hello = new CachingHelloService(translateService, 10);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("en translation: Hello, Dolly!", hello.greet("Dolly", "en"));
+        }
+        verify(translateService, times(1)).translate("Hello, Dolly!", "en");
+    }
+
+    @Test
+    void leastRecentlyUsedGreetingIsEvicted() {
+        when(translateService.translate(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(1) + ": " + invocation.getArgument(0));
+        CachingHelloService hello = new CachingHelloService(translateService, 2);
+
+        hello.greet("Dolly", "en");
+        hello.greet("Sam", "en");
+        hello.greet("Dolly", "en");   // Sam is now the eldest
+        hello.greet("Dolly", "fr");   // evicts Sam
+        hello.greet("Sam", "en");
+
+        assertEquals(2, hello.getCacheSize());
+        verify(translateService, times(1)).translate("Hello, Dolly!", "en");
+        verify(translateService, times(2)).translate("Hello, Sam!", "en");
+    }
+
+    @Test
+    void translationInProgressIsNotEvicted() throws Exception {
+        CountDownLatch translating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(translateService.translate(anyString(), anyString())).thenAnswer(invocation -> {
+            if (invocation.getArgument(0).equals("Hello, Dolly!")) {
+                translating.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return "en: " + invocation.getArgument(0);
+        });
+        CachingHelloService hello = new CachingHelloService(translateService, 1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> dolly = executor.submit(() -> hello.greet("Dolly", "en"));
+            assertTrue(translating.await(5, TimeUnit.SECONDS));
+            hello.greet("Sam", "en");
+            hello.greet("Ann", "en");   // evicts Sam, not the pending Dolly
+            release.countDown();
+
+            assertEquals("en: Hello, Dolly!", dolly.get(5, TimeUnit.SECONDS));
+            assertEquals("en: Hello, Dolly!", hello.greet("Dolly", "en"));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(translateService, times(1)).translate("Hello, Dolly!", "en");
+        assertEquals(1, hello.getCacheSize());
+    }
+
+    @Test
+    void concurrentMissesShareOneTranslation() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(translateService.translate("Hello, Dolly!", "en")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "en translation: Hello, Dolly!";
+        });
+        CachingHelloService hello = new CachingHelloService(translateService, 10);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> hello.greet("Dolly", "en")));
+            }
+            Thread.sleep(100);  // let every caller reach the cache
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("en translation: Hello, Dolly!", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(translateService, times(1)).translate("Hello, Dolly!", "en");
+    }
+
+    @Test
+    void greetAllTranslatesOnlyTheMissesInOneBatch() {
+        when(translateService.translate("Hello, Dolly!", "en")).thenReturn("en: Dolly");
+        when(translateService.translateBatch(List.of("Hello, Sam!", "Hello, Ann!"), "en"))
+                .thenReturn(List.of("en: Sam", "en: Ann"));
+        CachingHelloService hello = new CachingHelloService(translateService, 10);
+
+        hello.greet("Dolly", "en");
+        assertEquals(List.of("en: Sam", "en: Dolly", "en: Ann"),
+                hello.greetAll(List.of("Sam", "Dolly", "Ann"), "en"));
+        assertEquals("en: Ann", hello.greet("Ann", "en"));  // cached by the batch
+    }
+
+    @Test
+    void failedTranslationsAreNotCached() {
+        when(translateService.translate("Hello, Dolly!", "en"))
+                .thenThrow(new IllegalStateException("service down"))
+                .thenReturn("en translation: Hello, Dolly!");
+        CachingHelloService hello = new CachingHelloService(translateService, 10);
+
+        assertThrows(IllegalStateException.class, () -> hello.greet("Dolly", "en"));
+        assertEquals("en translation: Hello, Dolly!", hello.greet("Dolly", "en"));
+        assertTrue(hello.getCacheSize() > 0);
+    }
+
+    @Test
+    void errorsAreNotCachedEither() {
+        when(translateService.translate("Hello, Dolly!", "en"))
+                .thenThrow(new AssertionError("boom"))
+                .thenReturn("en translation: Hello, Dolly!");
+        CachingHelloService hello = new CachingHelloService(translateService, 10);
+
+        assertThrows(AssertionError.class, () -> hello.greet("Dolly", "en"));
+        assertEquals("en translation: Hello, Dolly!", hello.greet("Dolly", "en"));
+    }
+
+    @Test
+    void shortBatchResultIsRejectedAndNotCached() {
+        when(translateService.translateBatch(List.of("Hello, Sam!", "Hello, Ann!"), "en"))
+                .thenReturn(List.of("en: Sam"));
+        CachingHelloService hello = new CachingHelloService(translateService, 10);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> hello.greetAll(List.of("Sam", "Ann"), "en"));
+        assertTrue(e.getMessage().contains("1 translations for 2 texts"));
+        assertEquals(0, hello.getCacheSize());
+    }
+}
@@ -6,9 +6,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +32,12 @@ class HelloServiceTest {
         assertEquals("en translation: Hello, Dolly!", greeting);
     }
 
+    @Test
+    void testGreetNullName() {
+        HelloService hello = new HelloService(new TranslateService());
+        assertEquals("en translation: Hello, null!", hello.greet(null, "en"));
+    }
+
     @Test
     void testGreetWithFixedValues() {
         when(translateService.translate("Hello, Dolly!", "en"))
@@ -71,4 +81,16 @@ class HelloServiceTest {
         assertEquals("fr translation: Hello, Dolly!", greeting);
     }
 
-}
\ No newline at end of file
+    // All names go to the TranslateService in a single batch call
+    @Test
+    void testGreetAll() {
+        when(translateService.translateBatch(List.of("Hello, Dolly!", "Hello, Sam!"), "fr"))
+                .thenReturn(List.of("fr: Dolly", "fr: Sam"));
+
+        List<String> greetings = helloService.greetAll(List.of("Dolly", "Sam"), "fr");
+        assertEquals(List.of("fr: Dolly", "fr: Sam"), greetings);
+
+        verify(translateService).translateBatch(List.of("Hello, Dolly!", "Hello, Sam!"), "fr");
+        verifyNoMoreInteractions(translateService);
+    }
+}
@@ -0,0 +1,77 @@
+package com.kousenit.simple;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IncrementalAddingMachineTest {
+
+    @Test
+    void totalsTrackAddsSetsAndRemoves() {
+        IncrementalAddingMachine machine = new IncrementalAddingMachine(1, 2, 3);
+        machine.add(4);
+        assertEquals(10, machine.getTotal());
+
+        assertEquals(2, machine.set(1, 20));
+        assertEquals(28, machine.getTotal());
+        assertEquals(23, machine.getTotal(1, 3));
+
+        assertEquals(1, machine.remove(0));
+        assertEquals(27, machine.getTotal());
+        assertEquals(7, machine.getTotal(1, 3));  // indices shifted after the remove
+
+        // inherited strategies see the same series
+        assertEquals(27, machine.getTotalUsingLoop());
+        assertEquals(27, machine.getTotalUsingStream());
+    }
+
+    @Test
+    void rangeSumsMatchBruteForceUnderRandomChanges() {
+        Random random = new Random(7);
+        IncrementalAddingMachine machine = new IncrementalAddingMachine();
+        List<Integer> expected = new ArrayList<>();
+
+        for (int step = 0; step < 5_000; step++) {
+            int op = random.nextInt(10);
+            if (op < 6 || expected.isEmpty()) {
+                int value = random.nextInt();
+                machine.add(value);
+                expected.add(value);
+            } else if (op < 8) {
+                int index = random.nextInt(expected.size());
+                int value = random.nextInt();
+                machine.set(index, value);
+                expected.set(index, value);
+            } else {
+                int index = random.nextInt(expected.size());
+                machine.remove(index);
+                expected.remove(index);
+            }
+
+            int from = expected.isEmpty() ? 0 : random.nextInt(expected.size());
+            int to = from + random.nextInt(expected.size() - from + 1);
+            assertEquals(sum(expected, from, to), machine.getTotal(from, to));
+            assertEquals(sum(expected, 0, expected.size()), machine.getTotal());
+        }
+    }
+
+    @Test
+    void rejectsBadRanges() {
+        IncrementalAddingMachine machine = new IncrementalAddingMachine(1, 2, 3);
+        assertThrows(IndexOutOfBoundsException.class, () -> machine.getTotal(2, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> machine.getTotal(0, 4));
+    }
+
+    private static long sum(List<Integer> values, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values.get(i);
+        }
+        return sum;
+    }
+}
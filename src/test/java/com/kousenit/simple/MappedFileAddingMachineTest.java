@@ -0,0 +1,79 @@
+package com.kousenit.simple;
+
+import com.kousenit.simple.MappedFileAddingMachine.Width;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedFileAddingMachineTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void totalsInt32FileAcrossChunks() throws IOException {
+        int[] values = new Random(1).ints(100_003).toArray();
+        ByteBuffer bytes = ByteBuffer.allocate(values.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asIntBuffer().put(values);
+        Path file = Files.write(dir.resolve("ints.bin"), bytes.array());
+
+        // 4 KiB chunks, so the last one is partial
+        MappedFileAddingMachine machine = new MappedFileAddingMachine(file, Width.INT32, 4096);
+        long expected = AddingMachine.of(values).getTotalUsingLoop();
+        List<Long> progress = new CopyOnWriteArrayList<>();
+
+        assertEquals(expected, machine.getTotal((done, total) -> progress.add(done)));
+        assertEquals(Files.size(file), progress.get(progress.size() - 1));
+        assertEquals(expected, machine.getTotalParallel());
+    }
+
+    @Test
+    void totalsInt64File() throws IOException {
+        long[] values = {Long.MAX_VALUE / 2, -5, 1L << 40, 7};
+        ByteBuffer bytes = ByteBuffer.allocate(values.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asLongBuffer().put(values);
+        Path file = Files.write(dir.resolve("longs.bin"), bytes.array());
+
+        long expected = Long.MAX_VALUE / 2 - 5 + (1L << 40) + 7;
+        MappedFileAddingMachine machine = new MappedFileAddingMachine(file, Width.INT64, 16);
+        assertEquals(expected, machine.getTotal());
+        assertEquals(expected, machine.getTotalParallel());
+    }
+
+    @Test
+    void intermediateOverflowDoesNotMatterIfTheTotalFits() throws IOException {
+        long[] values = {Long.MAX_VALUE, 1, Long.MAX_VALUE, -1, Long.MIN_VALUE, -1};
+        ByteBuffer bytes = ByteBuffer.allocate(values.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asLongBuffer().put(values);
+        Path file = Files.write(dir.resolve("swings.bin"), bytes.array());
+
+        for (long chunkBytes : new long[]{8, 16, 48}) {
+            MappedFileAddingMachine machine = new MappedFileAddingMachine(file, Width.INT64, chunkBytes);
+            assertEquals(Long.MAX_VALUE - 2, machine.getTotal());
+            assertEquals(Long.MAX_VALUE - 2, machine.getTotalParallel());
+        }
+    }
+
+    @Test
+    void rejectsTruncatedFilesAndOverflow() throws IOException {
+        Path truncated = Files.write(dir.resolve("truncated.bin"), new byte[6]);
+        assertThrows(IOException.class,
+                () -> new MappedFileAddingMachine(truncated, Width.INT32).getTotal());
+
+        ByteBuffer bytes = ByteBuffer.allocate(2 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asLongBuffer().put(new long[]{Long.MAX_VALUE, 1});
+        Path overflow = Files.write(dir.resolve("overflow.bin"), bytes.array());
+        assertThrows(ArithmeticException.class,
+                () -> new MappedFileAddingMachine(overflow, Width.INT64, 8).getTotalParallel());
+    }
+}
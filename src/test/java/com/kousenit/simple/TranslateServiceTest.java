@@ -0,0 +1,131 @@
+package com.kousenit.simple;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TranslateServiceTest {
+
+    // Every translation takes 200 ms; "slow" takes 10 s and "broken" fails
+    private final TranslateService service = new TranslateService() {
+        @Override
+        public String translate(String text, String language) {
+            if (language.equals("broken")) {
+                throw new IllegalStateException("no such language");
+            }
+            sleep(language.equals("slow") ? 10_000 : 200);
+            return super.translate(text, language);
+        }
+    };
+
+    @Test
+    void translatesIntoManyLanguagesConcurrently() {
+        List<String> languages = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            languages.add("lang" + i);
+        }
+        // each translation waits until all of them are running at once
+        CountDownLatch allRunning = new CountDownLatch(languages.size());
+        TranslateService concurrent = new TranslateService() {
+            @Override
+            public String translate(String text, String language) {
+                allRunning.countDown();
+                await(allRunning);
+                return super.translate(text, language);
+            }
+        };
+
+        TranslateService.Translations translations =
+                concurrent.translateToAll("Hello", languages, Duration.ofSeconds(5));
+
+        assertEquals(languages, new ArrayList<>(translations.getTranslated().keySet()));
+        assertEquals("lang7 translation: Hello", translations.getTranslated().get("lang7"));
+        assertTrue(translations.getTimedOut().isEmpty());
+    }
+
+    @Test
+    void timeoutsAndFailuresAreReportedSeparately() {
+        long start = System.nanoTime();
+        TranslateService.Translations translations = service.translateToAll(
+                "Hello", List.of("fr", "slow", "broken", "de"), Duration.ofMillis(500));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertEquals(List.of("fr", "de"), new ArrayList<>(translations.getTranslated().keySet()));
+        assertEquals(List.of("slow"), translations.getTimedOut());
+        assertEquals(List.of("broken"), new ArrayList<>(translations.getFailed().keySet()));
+        assertTrue(translations.getFailed().get("broken") instanceof IllegalStateException);
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(2)) < 0, "took " + elapsed);
+    }
+
+    @Test
+    void timeoutCountsFromWhenEachTranslationStarts() {
+        // more languages than pool threads, so the last ones queue for a turn
+        List<String> languages = new ArrayList<>();
+        for (int i = 0; i < TranslateService.MAX_CONCURRENT_TRANSLATIONS + 8; i++) {
+            languages.add("lang" + i);
+        }
+
+        TranslateService.Translations translations =
+                service.translateToAll("Hello", languages, Duration.ofMillis(300));
+
+        assertEquals(languages, new ArrayList<>(translations.getTranslated().keySet()));
+        assertTrue(translations.getTimedOut().isEmpty());
+    }
+
+    @Test
+    void languagesThatNeverStartAreReportedAsTimedOut() {
+        CountDownLatch release = new CountDownLatch(1);
+        TranslateService stuck = new TranslateService() {
+            @Override
+            public String translate(String text, String language) {
+                // ignores interrupts, so cancelling does not free its thread
+                boolean released = false;
+                while (!released) {
+                    try {
+                        released = release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignored) {
+                        // keep holding the thread
+                    }
+                }
+                return super.translate(text, language);
+            }
+        };
+        List<String> languages = new ArrayList<>();
+        for (int i = 0; i < TranslateService.MAX_CONCURRENT_TRANSLATIONS + 4; i++) {
+            languages.add("lang" + i);
+        }
+
+        try {
+            TranslateService.Translations translations =
+                    stuck.translateToAll("Hello", languages, Duration.ofMillis(200));
+
+            assertEquals(languages, translations.getTimedOut());
+            assertTrue(translations.getTranslated().isEmpty());
+        } finally {
+            release.countDown();  // give the shared pool back to the other tests
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}